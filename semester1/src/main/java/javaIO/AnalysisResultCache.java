@@ -0,0 +1,244 @@
+package javaIO;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Персистентный кэш результатов анализа. Ключ — канонический путь файла, запись хранит размер,
+ * время изменения, настройки анализатора, необязательный хеш содержимого и результат в сжатом двоичном виде.
+ * <p>
+ * Все записи держатся в памяти в порядке последнего использования и целиком сохраняются в один
+ * индексный файл (временный файл и атомарное переименование). При превышении лимита по числу записей
+ * или по суммарному размеру вытесняются давно не использованные. Методы потокобезопасны.
+ */
+public class AnalysisResultCache implements AutoCloseable {
+
+    private static final int INDEX_MAGIC = 0x41524331; // "ARC1"
+
+    /**
+     * Запись кэша; результат десериализуется только при попадании
+     */
+    static class Entry {
+        final long size;
+        final long modifiedNanos;
+        final long config;
+        final byte[] contentHash;
+        final byte[] result;
+
+        Entry(long size, long modifiedNanos, long config, byte[] contentHash, byte[] result) {
+            this.size = size;
+            this.modifiedNanos = modifiedNanos;
+            this.config = config;
+            this.contentHash = contentHash;
+            this.result = result;
+        }
+
+        boolean matches(long size, long modifiedNanos, long config) {
+            return this.size == size && this.modifiedNanos == modifiedNanos && this.config == config;
+        }
+
+        boolean matchesContent(long size, long config, byte[] contentHash) {
+            return this.size == size && this.config == config && this.contentHash != null
+                    && Arrays.equals(this.contentHash, contentHash);
+        }
+
+        TextFileAnalyzer.AnalysisResult readResult() {
+            try {
+                return TextFileAnalyzer.AnalysisResult.read(new DataInputStream(new ByteArrayInputStream(result)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        long weight(String path) {
+            // Путь в UTF-16, метаданные и сам результат
+            return 2L * path.length() + 32 + (contentHash == null ? 0 : contentHash.length) + result.length;
+        }
+    }
+
+    private final Path indexFile;
+    private final int maxEntries;
+    private final long maxBytes;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    private boolean dirty;
+
+    private long evictions;
+
+    /**
+     * Открывает кэш; если индексный файл уже есть, загружает его. Повреждённый или обрезанный индекс
+     * отбрасывается: кэш открывается пустым и при сохранении перезаписывает его.
+     * @param maxEntries максимальное число записей
+     * @param maxBytes   максимальный суммарный размер записей в байтах
+     */
+    public AnalysisResultCache(Path indexFile, int maxEntries, long maxBytes) throws IOException {
+        if (maxEntries <= 0 || maxBytes <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Лимиты кэша должны быть положительными: maxEntries=%d, maxBytes=%d", maxEntries, maxBytes));
+        }
+        this.indexFile = indexFile;
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        if (Files.exists(indexFile)) {
+            load();
+        }
+    }
+
+    /**
+     * @return запись файла или null; запись становится последней использованной
+     */
+    synchronized Entry get(String path) {
+        Entry entry = entries.get(path);
+        if (entry != null) {
+            // Порядок использования изменился, его тоже нужно сохранить
+            dirty = true;
+        }
+        return entry;
+    }
+
+    /**
+     * Обновляет время изменения записи, содержимое которой подтверждено хешем
+     */
+    synchronized void revalidate(String path, Entry entry, long modifiedNanos) {
+        put(path, new Entry(entry.size, modifiedNanos, entry.config, entry.contentHash, entry.result));
+    }
+
+    synchronized void put(String path, long size, long modifiedNanos, long config, byte[] contentHash,
+                          TextFileAnalyzer.AnalysisResult result) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            result.write(new DataOutputStream(bytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        put(path, new Entry(size, modifiedNanos, config, contentHash, bytes.toByteArray()));
+    }
+
+    private void put(String path, Entry entry) {
+        Entry previous = entries.put(path, entry);
+        if (previous != null) {
+            totalBytes -= previous.weight(path);
+        }
+        totalBytes += entry.weight(path);
+        dirty = true;
+        evict();
+    }
+
+    /**
+     * Удаляет запись файла, например если он удалён
+     */
+    public synchronized void invalidate(Path file) throws IOException {
+        String path = file.toRealPath().toString();
+        Entry removed = entries.remove(path);
+        if (removed != null) {
+            totalBytes -= removed.weight(path);
+            dirty = true;
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        totalBytes = 0;
+        dirty = true;
+    }
+
+    public synchronized int getEntryCount() { return entries.size(); }
+    public synchronized long getTotalBytes() { return totalBytes; }
+    public synchronized long getEvictionCount() { return evictions; }
+
+    /**
+     * Сохраняет индекс, если он изменился. Записи пишутся от давно использованных к недавним,
+     * так что после загрузки порядок вытеснения тот же.
+     */
+    public synchronized void save() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        Path tempPath = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath)))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(entries.size());
+            for (Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+                Entry entry = mapEntry.getValue();
+                out.writeUTF(mapEntry.getKey());
+                out.writeLong(entry.size);
+                out.writeLong(entry.modifiedNanos);
+                out.writeLong(entry.config);
+                out.writeByte(entry.contentHash == null ? 0 : entry.contentHash.length);
+                if (entry.contentHash != null) {
+                    out.write(entry.contentHash);
+                }
+                out.writeInt(entry.result.length);
+                out.write(entry.result);
+            }
+        }
+        Files.move(tempPath, indexFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        dirty = false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        save();
+    }
+
+    private void load() {
+        long evictionsBefore = evictions;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if (in.readInt() != INDEX_MAGIC) {
+                throw new IOException("Неизвестный формат индекса кэша: " + indexFile);
+            }
+            int count = in.readInt();
+            if (count < 0) {
+                throw new IOException("Повреждённый индекс кэша: " + indexFile);
+            }
+            for (int i = 0; i < count; i++) {
+                String path = in.readUTF();
+                long size = in.readLong();
+                long modifiedNanos = in.readLong();
+                long config = in.readLong();
+                int hashLength = in.readUnsignedByte();
+                byte[] contentHash = hashLength == 0 ? null : new byte[hashLength];
+                if (contentHash != null) {
+                    in.readFully(contentHash);
+                }
+                int resultLength = in.readInt();
+                if (resultLength < 0 || resultLength > maxBytes) {
+                    throw new IOException("Повреждённый индекс кэша: " + indexFile);
+                }
+                byte[] result = new byte[resultLength];
+                in.readFully(result);
+                put(path, new Entry(size, modifiedNanos, config, contentHash, result));
+            }
+        } catch (IOException e) {
+            // Кэш можно пересобрать, поэтому нечитаемый индекс не мешает открыть его
+            clear();
+            return;
+        }
+        // Записи, вытесненные из-за более строгих лимитов, должны пропасть и из индекса
+        dirty = evictions != evictionsBefore;
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || totalBytes > maxBytes) && eldest.hasNext()) {
+            Map.Entry<String, Entry> entry = eldest.next();
+            totalBytes -= entry.getValue().weight(entry.getKey());
+            eldest.remove();
+            evictions++;
+        }
+    }
+}
@@ -0,0 +1,441 @@
+package javaIO;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javaIO.FileProcessorListener.Operation;
+
+/**
+ * Асинхронные разбиение, объединение и копирование файлов на AsynchronousFileChannel.
+ * Одновременно выполняется не больше maxInFlight операций чтения/записи: каждая занимает
+ * буфер из фиксированного пула, и следующий блок запускается, как только буфер освобождается.
+ * Так очередь устройства остаётся заполненной, а память ограничена maxInFlight * bufferSize.
+ */
+public class AsyncFileProcessor implements AutoCloseable {
+
+    private static final Set<OpenOption> READ_OPTIONS = Set.of(StandardOpenOption.READ);
+    private static final Set<OpenOption> WRITE_OPTIONS = Set.of(
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+    private final int bufferSize;
+    private final DirectBufferPool bufferPool;
+    private final FileProcessorListener listener;
+    private final ExecutorService ioExecutor;
+
+    private final Object lock = new Object();
+    private final ArrayDeque<ByteBuffer> freeBuffers = new ArrayDeque<>();
+    private final ArrayDeque<Transfer> pendingTransfers = new ArrayDeque<>();
+
+    /**
+     * @param maxInFlight максимальное число одновременно выполняемых операций ввода-вывода
+     * @param bufferSize размер одного буфера (и одной операции) в байтах
+     */
+    public AsyncFileProcessor(int maxInFlight, int bufferSize) {
+        this(maxInFlight, bufferSize, DirectBufferPool.shared());
+    }
+
+    /**
+     * @param bufferPool пул, из которого берутся буферы; они возвращаются в него при {@link #close()}
+     */
+    public AsyncFileProcessor(int maxInFlight, int bufferSize, DirectBufferPool bufferPool) {
+        this(maxInFlight, bufferSize, bufferPool, FileProcessorListener.NONE);
+    }
+
+    /**
+     * @param listener слушатель, которому сообщается время операций и частей, как в {@link FileProcessor};
+     *                 частью считается перенос одного файла-части (для копирования — весь файл)
+     */
+    public AsyncFileProcessor(int maxInFlight, int bufferSize, DirectBufferPool bufferPool,
+                              FileProcessorListener listener) {
+        if (maxInFlight <= 0 || bufferSize <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Параметры должны быть положительными: maxInFlight=%d, bufferSize=%d", maxInFlight, bufferSize));
+        }
+        this.bufferSize = bufferSize;
+        this.bufferPool = bufferPool;
+        this.listener = listener;
+        this.ioExecutor = Executors.newFixedThreadPool(
+                Math.max(2, Math.min(maxInFlight, Runtime.getRuntime().availableProcessors())));
+
+        for (int i = 0; i < maxInFlight; i++) {
+            freeBuffers.add(bufferPool.acquire(bufferSize));
+        }
+    }
+
+    /**
+     * Асинхронно разбивает файл на части с именами как у {@link FileProcessor#splitFile}
+     * @return future со списком частей, завершается после записи всех частей
+     */
+    public CompletableFuture<List<Path>> splitFile(String sourcePath, String outputDir, long partSize) {
+        if (partSize <= 0) {
+            throw new IllegalArgumentException("Размер части должен быть положительным: " + partSize);
+        }
+
+        Path sourceFile = Paths.get(sourcePath);
+        OperationRecorder recorder = new OperationRecorder(listener, Operation.SPLIT, sourceFile);
+        try {
+            if (!Files.exists(sourceFile)) {
+                throw new NoSuchFileException("Исходный файл не найден: " + sourcePath);
+            }
+            Path outputDirectory = Paths.get(outputDir);
+            Files.createDirectories(outputDirectory);
+
+            String fileName = sourceFile.getFileName().toString();
+            AsynchronousFileChannel source = AsynchronousFileChannel.open(sourceFile, READ_OPTIONS, ioExecutor);
+            long fileSize = source.size();
+
+            List<Path> partPaths = new ArrayList<>();
+            List<Transfer> transfers = new ArrayList<>();
+            int partNumber = 1;
+            for (long position = 0; position < fileSize; position += partSize) {
+                Path partPath = outputDirectory.resolve(FileProcessor.partFileName(fileName, partNumber++));
+                partPaths.add(partPath);
+                transfers.add(new Transfer(source, null, position, null, partPath, 0,
+                        Math.min(partSize, fileSize - position)));
+            }
+
+            return run(transfers, List.of(source), recorder).thenApply(ignored -> partPaths);
+        } catch (IOException e) {
+            recorder.close();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Асинхронно объединяет части (порядок определяется номером части в имени).
+     * Каждая часть пишется по своему смещению, части копируются одновременно.
+     */
+    public CompletableFuture<Void> mergeFiles(List<Path> partPaths, String outputPath) {
+        Path outputFile = Paths.get(outputPath);
+        OperationRecorder recorder = new OperationRecorder(listener, Operation.MERGE, outputFile);
+        try {
+            List<Path> orderedParts = new ArrayList<>(partPaths);
+            orderedParts.sort(Comparator.comparing(FileProcessor::extractPartNumber));
+
+            AsynchronousFileChannel output = AsynchronousFileChannel.open(outputFile, WRITE_OPTIONS, ioExecutor);
+
+            List<Transfer> transfers = new ArrayList<>();
+            long offset = 0;
+            for (Path partPath : orderedParts) {
+                if (!Files.exists(partPath)) {
+                    output.close();
+                    throw new NoSuchFileException("Часть файла не найдена: " + partPath);
+                }
+                long partSize = Files.size(partPath);
+                transfers.add(new Transfer(null, partPath, 0, output, null, offset, partSize));
+                offset += partSize;
+            }
+
+            return run(transfers, List.of(output), recorder);
+        } catch (IOException e) {
+            recorder.close();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Асинхронно копирует файл блоками по bufferSize, держа до maxInFlight блоков в работе
+     */
+    public CompletableFuture<Void> copy(String sourcePath, String destPath) {
+        Path sourceFile = Paths.get(sourcePath);
+        OperationRecorder recorder = new OperationRecorder(listener, Operation.COPY, sourceFile);
+        try {
+            AsynchronousFileChannel source = AsynchronousFileChannel.open(sourceFile, READ_OPTIONS, ioExecutor);
+            try {
+                long size = source.size();
+                AsynchronousFileChannel dest = AsynchronousFileChannel.open(
+                        Paths.get(destPath), WRITE_OPTIONS, ioExecutor);
+
+                Transfer transfer = new Transfer(source, null, 0, dest, null, 0, size);
+                return run(List.of(transfer), List.of(source, dest), recorder);
+            } catch (IOException e) {
+                source.close();
+                throw e;
+            }
+        } catch (IOException e) {
+            recorder.close();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Останавливает пул потоков. Вызывать после завершения всех возвращённых future:
+     * буферы возвращаются в общий пул сразу.
+     */
+    @Override
+    public void close() {
+        ioExecutor.shutdown();
+        synchronized (lock) {
+            freeBuffers.forEach(bufferPool::release);
+            freeBuffers.clear();
+        }
+    }
+
+    /**
+     * Ставит переносы в очередь и возвращает future, которое завершится после всех переносов.
+     * При первой ошибке остальные переносы отменяются. Общие каналы закрываются, а future завершается
+     * только после того, как у всех переносов не осталось блоков в работе, поэтому после ошибки
+     * ни одна операция уже не пишет в закрытый канал и не держит буфер. Замеры операции закрываются
+     * перед завершением future.
+     */
+    private CompletableFuture<Void> run(List<Transfer> transfers, List<AsynchronousFileChannel> sharedChannels,
+                                        OperationRecorder recorder) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CompletableFuture<?>[] settled = new CompletableFuture<?>[transfers.size()];
+        for (int i = 0; i < transfers.size(); i++) {
+            transfers.get(i).recorder = recorder;
+            transfers.get(i).partNumber = i + 1;
+            settled[i] = transfers.get(i).settled;
+            transfers.get(i).future.whenComplete((ignored, error) -> {
+                if (error != null && failure.compareAndSet(null, error)) {
+                    transfers.forEach(transfer -> transfer.future.completeExceptionally(error));
+                }
+            });
+        }
+
+        CompletableFuture.allOf(settled).whenComplete((ignored, unused) -> {
+            for (AsynchronousFileChannel channel : sharedChannels) {
+                closeQuietly(channel);
+            }
+            Throwable error = failure.get();
+            if (error == null) {
+                recorder.complete();
+            }
+            recorder.close();
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(null);
+            }
+        });
+
+        synchronized (lock) {
+            pendingTransfers.addAll(transfers);
+        }
+        pump();
+        return result;
+    }
+
+    /**
+     * Запускает новые блоки, пока есть свободные буферы и незапущенная работа
+     */
+    private void pump() {
+        while (true) {
+            Transfer transfer;
+            ByteBuffer buffer;
+            long chunkOffset;
+            int chunkLength;
+
+            synchronized (lock) {
+                while (!pendingTransfers.isEmpty()
+                        && (pendingTransfers.peek().future.isDone() || pendingTransfers.peek().isFullyScheduled())) {
+                    pendingTransfers.poll();
+                }
+                if (pendingTransfers.isEmpty() || freeBuffers.isEmpty()) {
+                    return;
+                }
+                transfer = pendingTransfers.peek();
+                buffer = freeBuffers.poll();
+                chunkOffset = transfer.scheduled;
+                if (chunkOffset == 0) {
+                    transfer.part = transfer.recorder.startPart(transfer.partNumber);
+                }
+                chunkLength = (int) Math.min(bufferSize, transfer.length - chunkOffset);
+                transfer.scheduled += chunkLength;
+                transfer.inFlight.incrementAndGet();
+            }
+
+            try {
+                transfer.openChannels();
+            } catch (IOException e) {
+                transfer.future.completeExceptionally(e);
+                finishChunk(transfer, buffer);
+                continue;
+            }
+
+            buffer.clear().limit(chunkLength);
+            readChunk(transfer, buffer, chunkOffset);
+        }
+    }
+
+    private void readChunk(Transfer transfer, ByteBuffer buffer, long chunkOffset) {
+        long position = transfer.sourceOffset + chunkOffset + buffer.position();
+        transfer.source.read(buffer, position, null, new CompletionHandler<Integer, Void>() {
+            @Override
+            public void completed(Integer bytesRead, Void attachment) {
+                if (transfer.future.isDone()) {
+                    finishChunk(transfer, buffer);
+                } else if (bytesRead < 0) {
+                    transfer.future.completeExceptionally(
+                            new EOFException("Исходный файл короче ожидаемого: " + transfer.sourcePath));
+                    finishChunk(transfer, buffer);
+                } else if (buffer.hasRemaining()) {
+                    readChunk(transfer, buffer, chunkOffset);
+                } else {
+                    buffer.flip();
+                    writeChunk(transfer, buffer, chunkOffset);
+                }
+            }
+
+            @Override
+            public void failed(Throwable error, Void attachment) {
+                transfer.future.completeExceptionally(error);
+                finishChunk(transfer, buffer);
+            }
+        });
+    }
+
+    private void writeChunk(Transfer transfer, ByteBuffer buffer, long chunkOffset) {
+        long position = transfer.targetOffset + chunkOffset + buffer.position();
+        transfer.target.write(buffer, position, null, new CompletionHandler<Integer, Void>() {
+            @Override
+            public void completed(Integer bytesWritten, Void attachment) {
+                if (buffer.hasRemaining() && !transfer.future.isDone()) {
+                    writeChunk(transfer, buffer, chunkOffset);
+                } else {
+                    finishChunk(transfer, buffer);
+                }
+            }
+
+            @Override
+            public void failed(Throwable error, Void attachment) {
+                transfer.future.completeExceptionally(error);
+                finishChunk(transfer, buffer);
+            }
+        });
+    }
+
+    /**
+     * Возвращает буфер в пул, завершает перенос, если это был его последний блок, и запускает следующий блок
+     */
+    private void finishChunk(Transfer transfer, ByteBuffer buffer) {
+        boolean lastChunk;
+        synchronized (lock) {
+            freeBuffers.add(buffer);
+            lastChunk = transfer.inFlight.decrementAndGet() == 0
+                    && (transfer.isFullyScheduled() || transfer.future.isDone());
+        }
+
+        if (lastChunk) {
+            transfer.closeOwnedChannels();
+            // Перенос, отменённый чужой ошибкой, частью не считается
+            if (!transfer.future.isDone()) {
+                transfer.part.end(transfer.length);
+            }
+            transfer.future.complete(null);
+            transfer.settled.complete(null);
+        }
+        pump();
+    }
+
+    private static void closeQuietly(AsynchronousFileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // ошибка закрытия не влияет на уже записанные данные
+        }
+    }
+
+    /**
+     * Перенос диапазона из одного канала в другой. Канал, заданный путём, открывается при запуске
+     * первого блока и закрывается после последнего, поэтому одновременно открыто немного файлов.
+     */
+    private final class Transfer {
+        private final Path sourcePath;
+        private final Path targetPath;
+        private final long sourceOffset;
+        private final long targetOffset;
+        private final long length;
+        private final boolean ownsSource;
+        private final boolean ownsTarget;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        // Завершается, когда future завершено и ни одного блока переноса больше нет в работе
+        private final CompletableFuture<Void> settled = new CompletableFuture<>();
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private AsynchronousFileChannel source;
+        private AsynchronousFileChannel target;
+        private long scheduled;
+        private OperationRecorder recorder;
+        private int partNumber;
+        private OperationRecorder.Part part;
+
+        Transfer(AsynchronousFileChannel source, Path sourcePath, long sourceOffset,
+                 AsynchronousFileChannel target, Path targetPath, long targetOffset, long length) {
+            this.source = source;
+            this.sourcePath = sourcePath;
+            this.sourceOffset = sourceOffset;
+            this.target = target;
+            this.targetPath = targetPath;
+            this.targetOffset = targetOffset;
+            this.length = length;
+            this.ownsSource = source == null;
+            this.ownsTarget = target == null;
+
+            // Отменённый между блоками перенос сам закрывает свои файлы: блоков, которые сделали бы это, больше не будет
+            future.whenComplete((ignored, error) -> {
+                boolean idle;
+                synchronized (lock) {
+                    idle = inFlight.get() == 0;
+                }
+                if (idle) {
+                    closeOwnedChannels();
+                    settled.complete(null);
+                }
+            });
+
+            // Пустую часть всё равно нужно создать, поэтому сразу открываем и закрываем её
+            if (length == 0) {
+                try {
+                    openChannels();
+                    closeOwnedChannels();
+                    future.complete(null);
+                } catch (IOException e) {
+                    future.completeExceptionally(e);
+                }
+            }
+        }
+
+        boolean isFullyScheduled() {
+            return scheduled >= length;
+        }
+
+        synchronized void openChannels() throws IOException {
+            if (source == null) {
+                source = AsynchronousFileChannel.open(sourcePath, READ_OPTIONS, ioExecutor);
+            }
+            if (target == null) {
+                target = AsynchronousFileChannel.open(targetPath, WRITE_OPTIONS, ioExecutor);
+            }
+        }
+
+        synchronized void closeOwnedChannels() {
+            if (ownsSource && source != null) {
+                closeQuietly(source);
+            }
+            if (ownsTarget && target != null) {
+                closeQuietly(target);
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package javaIO;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+
+class AsyncFileProcessorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testAsyncSplitAndMerge() throws Exception {
+        Path testFile = Files.createTempFile(tempDir, "async", ".dat");
+        byte[] testData = new byte[100_000];
+        new Random().nextBytes(testData);
+        Files.write(testFile, testData);
+
+        FileProcessorMetrics metrics = new FileProcessorMetrics();
+        try (AsyncFileProcessor processor = new AsyncFileProcessor(4, 4096, DirectBufferPool.shared(), metrics)) {
+            Path outputDir = tempDir.resolve("async_parts");
+            List<Path> parts = processor.splitFile(testFile.toString(), outputDir.toString(), 30_000).get();
+
+            assertEquals(4, parts.size());
+            assertEquals(30_000, Files.size(parts.get(0)));
+            assertEquals(10_000, Files.size(parts.get(3)));
+
+            Path mergedFile = tempDir.resolve("async_merged.dat");
+            processor.mergeFiles(parts, mergedFile.toString()).get();
+
+            assertArrayEquals(testData, Files.readAllBytes(mergedFile));
+        }
+
+        FileProcessorMetrics.OperationStats split = metrics.get(FileProcessorListener.Operation.SPLIT);
+        assertEquals(4, split.getPartCount());
+        assertEquals(100_000, split.getByteCount());
+        FileProcessorMetrics.OperationStats merge = metrics.get(FileProcessorListener.Operation.MERGE);
+        assertEquals(1, merge.getOperationCount());
+        assertEquals(100_000, merge.getByteCount());
+        assertEquals(0, merge.getFailureCount());
+    }
+
+    @Test
+    void testAsyncCopy() throws Exception {
+        Path sourceFile = Files.createTempFile(tempDir, "async_source", ".dat");
+        byte[] testData = new byte[50_001];
+        new Random().nextBytes(testData);
+        Files.write(sourceFile, testData);
+
+        Path destFile = Files.createTempFile(tempDir, "async_dest", ".dat");
+        Files.write(destFile, new byte[80_000]);
+
+        try (AsyncFileProcessor processor = new AsyncFileProcessor(8, 1024)) {
+            processor.copy(sourceFile.toString(), destFile.toString()).get();
+        }
+
+        assertArrayEquals(testData, Files.readAllBytes(destFile));
+    }
+
+    @Test
+    void testFailureWaitsForInFlightChunks() throws Exception {
+        Path testFile = Files.createTempFile(tempDir, "inflight", ".dat");
+        byte[] testData = new byte[1 << 20];
+        new Random().nextBytes(testData);
+        Files.write(testFile, testData);
+
+        // На месте третьей части лежит каталог: её открытие падает, пока блоки других частей ещё в работе
+        Path outputDir = tempDir.resolve("inflight_parts");
+        Files.createDirectories(outputDir.resolve(FileProcessor.partFileName(testFile.getFileName().toString(), 3)));
+
+        int maxInFlight = 8;
+        DirectBufferPool pool = new DirectBufferPool(4096, 1 << 20);
+        AsyncFileProcessor processor = new AsyncFileProcessor(maxInFlight, 4096, pool);
+        try {
+            assertThrows(ExecutionException.class,
+                    () -> processor.splitFile(testFile.toString(), outputDir.toString(), 64 * 1024).get());
+        } finally {
+            processor.close();
+        }
+
+        // Future завершилось только после возврата всех буферов, и close отдал в пул каждый из них
+        assertEquals(maxInFlight * 4096L, pool.getPooledBytes());
+    }
+
+    @Test
+    void testAsyncMergeMissingPart() throws IOException {
+        try (AsyncFileProcessor processor = new AsyncFileProcessor(2, 1024)) {
+            List<Path> parts = List.of(tempDir.resolve("missing.dat.part1"));
+
+            ExecutionException error = assertThrows(ExecutionException.class,
+                    () -> processor.mergeFiles(parts, tempDir.resolve("out.dat").toString()).get());
+            assertInstanceOf(NoSuchFileException.class, error.getCause());
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package javaIO;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+/**
+ * Пакетный анализ множества файлов: каждый файл анализируется в своём виртуальном потоке,
+ * а число одновременно открытых файлов ограничено семафором. На множестве мелких файлов
+ * время уходит в основном на открытие и ожидание диска, поэтому пропускная способность растёт
+ * с числом одновременных файлов, а не с числом ядер.
+ * <p>
+ * Ошибка чтения одного файла не прерывает пакет: она попадает в {@link BatchResult#getFailures()}.
+ */
+public class BatchTextAnalyzer {
+
+    public static final int DEFAULT_MAX_OPEN_FILES = 64;
+
+    private final TextFileAnalyzer analyzer;
+    private final int maxOpenFiles;
+
+    public BatchTextAnalyzer(TextFileAnalyzer analyzer) {
+        this(analyzer, DEFAULT_MAX_OPEN_FILES);
+    }
+
+    /**
+     * @param analyzer     анализатор с нужными настройками (сводка частых слов, HyperLogLog)
+     * @param maxOpenFiles сколько файлов может анализироваться одновременно
+     */
+    public BatchTextAnalyzer(TextFileAnalyzer analyzer, int maxOpenFiles) {
+        if (maxOpenFiles <= 0) {
+            throw new IllegalArgumentException("Число открытых файлов должно быть положительным: " + maxOpenFiles);
+        }
+        this.analyzer = analyzer;
+        this.maxOpenFiles = maxOpenFiles;
+    }
+
+    /**
+     * Результаты пакета: по каждому файлу в порядке путей и общий результат
+     */
+    public static class BatchResult {
+        private final Map<Path, TextFileAnalyzer.AnalysisResult> results;
+        private final Map<Path, IOException> failures;
+        private final TextFileAnalyzer.AnalysisResult aggregate;
+
+        BatchResult(Map<Path, TextFileAnalyzer.AnalysisResult> results, Map<Path, IOException> failures,
+                    TextFileAnalyzer.AnalysisResult aggregate) {
+            this.results = Collections.unmodifiableMap(results);
+            this.failures = Collections.unmodifiableMap(failures);
+            this.aggregate = aggregate;
+        }
+
+        public Map<Path, TextFileAnalyzer.AnalysisResult> getResults() { return results; }
+        public Map<Path, IOException> getFailures() { return failures; }
+
+        /**
+         * Объединение результатов всех успешно проанализированных файлов
+         * через {@link TextFileAnalyzer.AnalysisResult#merge}
+         */
+        public TextFileAnalyzer.AnalysisResult getAggregate() { return aggregate; }
+    }
+
+    /**
+     * Анализирует все обычные файлы директории и её поддиректорий
+     */
+    public BatchResult analyzeDirectory(Path directory) throws IOException {
+        return analyzeDirectory(directory, null);
+    }
+
+    /**
+     * @param glob шаблон пути относительно directory в синтаксисе {@link java.nio.file.FileSystem#getPathMatcher},
+     *             например {@code "**.log"} или {@code "*.txt"}; null — все файлы
+     */
+    public BatchResult analyzeDirectory(Path directory, String glob) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            throw new NoSuchFileException("Директория не найдена: " + directory);
+        }
+        PathMatcher matcher = glob == null ? null : FileSystems.getDefault().getPathMatcher("glob:" + glob);
+
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(directory)) {
+            files = paths.filter(Files::isRegularFile)
+                    .filter(path -> matcher == null || matcher.matches(directory.relativize(path)))
+                    .sorted()
+                    .toList();
+        }
+        return analyzeFiles(files);
+    }
+
+    /**
+     * Анализирует файлы из списка; результаты по файлам идут в порядке списка
+     */
+    public BatchResult analyzeFiles(List<Path> files) throws IOException {
+        Semaphore openFiles = new Semaphore(maxOpenFiles);
+        Map<Path, Future<TextFileAnalyzer.AnalysisResult>> futures = new LinkedHashMap<>();
+
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            for (Path file : files) {
+                Callable<TextFileAnalyzer.AnalysisResult> task = () -> {
+                    openFiles.acquire();
+                    try {
+                        return analyzer.analyzeFile(file.toString());
+                    } finally {
+                        openFiles.release();
+                    }
+                };
+                futures.put(file, executor.submit(task));
+            }
+
+            Map<Path, TextFileAnalyzer.AnalysisResult> results = new LinkedHashMap<>();
+            Map<Path, IOException> failures = new LinkedHashMap<>();
+            for (Map.Entry<Path, Future<TextFileAnalyzer.AnalysisResult>> entry : futures.entrySet()) {
+                try {
+                    results.put(entry.getKey(), entry.getValue().get());
+                } catch (ExecutionException e) {
+                    failures.put(entry.getKey(), asIOException(e.getCause()));
+                }
+            }
+            return new BatchResult(results, failures, aggregate(results.values()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Пакетный анализ прерван");
+        } finally {
+            for (Future<TextFileAnalyzer.AnalysisResult> future : futures.values()) {
+                future.cancel(true);
+            }
+            executor.shutdownNow();
+        }
+    }
+
+    private TextFileAnalyzer.AnalysisResult aggregate(Iterable<TextFileAnalyzer.AnalysisResult> results) {
+        TextFileAnalyzer.AnalysisResult aggregate = analyzer.emptyResult();
+        for (TextFileAnalyzer.AnalysisResult result : results) {
+            aggregate = aggregate.merge(result);
+        }
+        return aggregate;
+    }
+
+    private static IOException asIOException(Throwable cause) {
+        if (cause instanceof IOException ioException) {
+            return ioException;
+        }
+        if (cause instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new IOException(cause);
+    }
+}
@@ -0,0 +1,102 @@
+package javaIO;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class BatchTextAnalyzerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testAnalyzeDirectoryMatchesSequentialAnalysis() throws IOException {
+        TextFileAnalyzer analyzer = new TextFileAnalyzer(1000, 12);
+        for (int i = 0; i < 300; i++) {
+            Path directory = Files.createDirectories(tempDir.resolve("dir" + (i % 7)));
+            String extension = i % 3 == 0 ? ".log" : ".txt";
+            Files.writeString(directory.resolve("file" + i + extension),
+                    "common word" + i + "\nline " + (i % 10) + "\n".repeat(i % 4));
+        }
+
+        BatchTextAnalyzer batch = new BatchTextAnalyzer(analyzer, 8);
+        BatchTextAnalyzer.BatchResult result = batch.analyzeDirectory(tempDir, "**.log");
+
+        assertEquals(100, result.getResults().size());
+        assertTrue(result.getFailures().isEmpty());
+
+        long lines = 0;
+        long words = 0;
+        long size = 0;
+        Map<Character, Integer> frequency = new HashMap<>();
+        for (Map.Entry<Path, TextFileAnalyzer.AnalysisResult> entry : result.getResults().entrySet()) {
+            assertTrue(entry.getKey().toString().endsWith(".log"));
+            TextFileAnalyzer.AnalysisResult expected = analyzer.analyzeFile(entry.getKey().toString());
+            TextFileAnalyzer.AnalysisResult actual = entry.getValue();
+            assertEquals(expected.getLineCount(), actual.getLineCount());
+            assertEquals(expected.getWordCount(), actual.getWordCount());
+            assertEquals(expected.getCharFrequency(), actual.getCharFrequency());
+
+            lines += expected.getLineCount();
+            words += expected.getWordCount();
+            size += expected.getFileSize();
+            expected.getCharFrequency().forEach((c, count) -> frequency.merge(c, count, Integer::sum));
+        }
+
+        TextFileAnalyzer.AnalysisResult aggregate = result.getAggregate();
+        assertEquals(lines, aggregate.getLineCount());
+        assertEquals(words, aggregate.getWordCount());
+        assertEquals(size, aggregate.getFileSize());
+        assertEquals(frequency, aggregate.getCharFrequency());
+        assertEquals("common", aggregate.getTopWords(1).get(0).getWord());
+        assertEquals(100, aggregate.getTopWords(1).get(0).getCount());
+        // common, line, 0..9 и 100 разных wordN
+        assertEquals(112, aggregate.getDistinctWords().estimate(), 112 * 0.05);
+
+        assertEquals(0, batch.analyzeDirectory(tempDir, "*.none").getAggregate().getLineCount());
+    }
+
+    @Test
+    void testFailuresDoNotStopBatch() throws IOException {
+        Path present = Files.writeString(tempDir.resolve("present.txt"), "a b\nc\n");
+        Path missing = tempDir.resolve("missing.txt");
+
+        BatchTextAnalyzer.BatchResult result = new BatchTextAnalyzer(new TextFileAnalyzer(), 1)
+                .analyzeFiles(List.of(missing, present));
+
+        assertEquals(List.of(present), List.copyOf(result.getResults().keySet()));
+        assertInstanceOf(NoSuchFileException.class, result.getFailures().get(missing));
+        assertEquals(3, result.getAggregate().getWordCount());
+        assertThrows(NoSuchFileException.class, () -> new BatchTextAnalyzer(new TextFileAnalyzer()).analyzeDirectory(missing));
+    }
+
+    @Test
+    void testMergeIsAssociative() throws IOException {
+        TextFileAnalyzer analyzer = new TextFileAnalyzer(3, 10);
+        TextFileAnalyzer.AnalysisResult a = analyzer.analyzeFile(
+                Files.writeString(tempDir.resolve("a.txt"), "x y z x\n").toString());
+        TextFileAnalyzer.AnalysisResult b = analyzer.analyzeFile(
+                Files.writeString(tempDir.resolve("b.txt"), "y y w\nv\n").toString());
+        TextFileAnalyzer.AnalysisResult c = analyzer.analyzeFile(
+                Files.writeString(tempDir.resolve("c.txt"), "x u\n").toString());
+
+        TextFileAnalyzer.AnalysisResult left = a.merge(b).merge(c);
+        TextFileAnalyzer.AnalysisResult right = a.merge(b.merge(c));
+
+        assertEquals(left.getLineCount(), right.getLineCount());
+        assertEquals(left.getWordCount(), right.getWordCount());
+        assertEquals(left.getCharCount(), right.getCharCount());
+        assertEquals(left.getCharFrequency(), right.getCharFrequency());
+        assertEquals(left.getDistinctWords().estimate(), right.getDistinctWords().estimate());
+        assertEquals(left.getWordSummary().getTotalCount(), right.getWordSummary().getTotalCount());
+        assertEquals(10, left.getWordSummary().getTotalCount());
+    }
+}
@@ -0,0 +1,153 @@
+package javaIO;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Сигнатура файла в стиле rsync: для каждого блока слабая скользящая сумма (как в rsync/Adler-32)
+ * и сильная MD5. Слабая сумма дёшево отсеивает изменённые блоки, сильная подтверждает совпадение.
+ */
+public class BlockSignature {
+
+    private static final int READ_BUFFER_SIZE = 1 << 20;
+
+    private final int blockSize;
+    private final long fileSize;
+    private final int[] weakSums;
+    private final byte[][] strongSums;
+
+    private BlockSignature(int blockSize, long fileSize, int[] weakSums, byte[][] strongSums) {
+        this.blockSize = blockSize;
+        this.fileSize = fileSize;
+        this.weakSums = weakSums;
+        this.strongSums = strongSums;
+    }
+
+    public int getBlockSize() { return blockSize; }
+    public long getFileSize() { return fileSize; }
+    public int getBlockCount() { return weakSums.length; }
+
+    /**
+     * Вычисляет сигнатуру файла за один последовательный проход
+     * @param file файл
+     * @param blockSize размер блока в байтах
+     */
+    public static BlockSignature compute(Path file, int blockSize) throws IOException {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Размер блока должен быть положительным: " + blockSize);
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            long blockCount = (fileSize + blockSize - 1) / blockSize;
+            if (blockCount > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Слишком маленький блок для файла размером " + fileSize);
+            }
+
+            int[] weakSums = new int[(int) blockCount];
+            byte[][] strongSums = new byte[(int) blockCount][];
+            MessageDigest md5 = newMd5();
+            BlockReader reader = new BlockReader(channel, blockSize);
+
+            for (int i = 0; i < blockCount; i++) {
+                int length = reader.next(i);
+                weakSums[i] = weakSum(reader.array(), reader.offset(), length);
+                md5.update(reader.array(), reader.offset(), length);
+                strongSums[i] = md5.digest();
+            }
+
+            return new BlockSignature(blockSize, fileSize, weakSums, strongSums);
+        }
+    }
+
+    /**
+     * Проверяет, совпадает ли блок с данными, сначала по слабой сумме, потом по MD5
+     */
+    boolean matches(int blockIndex, byte[] data, int offset, int length, MessageDigest md5) {
+        if (blockIndex >= weakSums.length || length != blockLength(blockIndex)) {
+            return false;
+        }
+        if (weakSums[blockIndex] != weakSum(data, offset, length)) {
+            return false;
+        }
+        md5.update(data, offset, length);
+        return Arrays.equals(strongSums[blockIndex], md5.digest());
+    }
+
+    private int blockLength(int blockIndex) {
+        return (int) Math.min(blockSize, fileSize - (long) blockIndex * blockSize);
+    }
+
+    /**
+     * Слабая сумма rsync: a — сумма байт, b — сумма префиксных сумм, обе по модулю 2^16
+     */
+    static int weakSum(byte[] data, int offset, int length) {
+        int a = 0;
+        int b = 0;
+        for (int i = 0; i < length; i++) {
+            a += data[offset + i] & 0xFF;
+            b += a;
+        }
+        return (a & 0xFFFF) | (b << 16);
+    }
+
+    static MessageDigest newMd5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 недоступен", e);
+        }
+    }
+
+    /**
+     * Последовательно читает блоки файла, подгружая их пачками по ~1 МБ
+     */
+    static final class BlockReader {
+        private final FileChannel channel;
+        private final int blockSize;
+        private final long fileSize;
+        private final byte[] data;
+        private final ByteBuffer buffer;
+        private long bufferStart = -1;
+        private int bufferLength;
+        private int offset;
+
+        BlockReader(FileChannel channel, int blockSize) throws IOException {
+            this.channel = channel;
+            this.blockSize = blockSize;
+            this.fileSize = channel.size();
+            this.data = new byte[Math.max(blockSize, READ_BUFFER_SIZE / blockSize * blockSize)];
+            this.buffer = ByteBuffer.wrap(data);
+        }
+
+        /**
+         * Загружает блок с номером blockIndex и возвращает его длину
+         */
+        int next(long blockIndex) throws IOException {
+            long position = blockIndex * blockSize;
+            if (bufferStart < 0 || position < bufferStart || position >= bufferStart + bufferLength) {
+                buffer.clear();
+                buffer.limit((int) Math.min(data.length, fileSize - position));
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, position + buffer.position()) < 0) {
+                        throw new EOFException("Файл стал короче во время чтения");
+                    }
+                }
+                bufferStart = position;
+                bufferLength = buffer.position();
+            }
+            offset = (int) (position - bufferStart);
+            return (int) Math.min(blockSize, bufferStart + bufferLength - position);
+        }
+
+        byte[] array() { return data; }
+        int offset() { return offset; }
+    }
+}
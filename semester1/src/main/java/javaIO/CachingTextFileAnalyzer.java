@@ -0,0 +1,97 @@
+package javaIO;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Анализатор с персистентным кэшем: для файла, у которого не изменились размер и время изменения,
+ * результат берётся из {@link AnalysisResultCache} без открытия файла. Ключ — канонический путь,
+ * в записи учитываются и настройки анализатора, так что кэш можно делить между разными конфигурациями.
+ * <p>
+ * Если включена проверка содержимого, при каждом анализе сохраняется корень дерева Меркла файла,
+ * и файл с прежним размером, но новым временем изменения (touch, копирование с диска на диск)
+ * не анализируется заново, если его хеш совпал. Кэшируется только {@link #analyzeFile}, в том числе
+ * при вызове из {@link BatchTextAnalyzer}.
+ */
+public class CachingTextFileAnalyzer extends TextFileAnalyzer {
+
+    /**
+     * Файлы, изменённые позже этого интервала до начала анализа, не кэшируются: запись в том же
+     * такте часов файловой системы не изменила бы время изменения, и кэш вернул бы устаревший результат
+     */
+    static final long RACY_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    private final AnalysisResultCache cache;
+    private final boolean verifyContent;
+    private final long config;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public CachingTextFileAnalyzer(AnalysisResultCache cache) {
+        this(0, 0, cache, false);
+    }
+
+    /**
+     * @param verifyContent хранить хеш содержимого и сверять его, когда изменилось только время изменения
+     */
+    public CachingTextFileAnalyzer(int topWordCapacity, int distinctPrecision, AnalysisResultCache cache,
+                                   boolean verifyContent) {
+        this(topWordCapacity, distinctPrecision, DirectBufferPool.shared(), cache, verifyContent);
+    }
+
+    public CachingTextFileAnalyzer(int topWordCapacity, int distinctPrecision, DirectBufferPool bufferPool,
+                                   AnalysisResultCache cache, boolean verifyContent) {
+        super(topWordCapacity, distinctPrecision, bufferPool);
+        this.cache = cache;
+        this.verifyContent = verifyContent;
+        this.config = ((long) topWordCapacity << 32) | distinctPrecision;
+    }
+
+    @Override
+    public AnalysisResult analyzeFile(String filePath) throws IOException {
+        Path path = Paths.get(filePath).toRealPath();
+        String key = path.toString();
+        // Атрибуты читаются до анализа: если файл изменится во время чтения, время изменения не совпадёт
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        long size = attributes.size();
+        long modifiedNanos = attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+
+        AnalysisResultCache.Entry entry = cache.get(key);
+        if (entry != null && entry.matches(size, modifiedNanos, config)) {
+            hits.increment();
+            return entry.readResult();
+        }
+
+        long startedNanos = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+        boolean cacheable = startedNanos - modifiedNanos >= RACY_WINDOW_NANOS;
+
+        byte[] contentHash = null;
+        if (verifyContent) {
+            contentHash = MerkleTree.build(path).getRootHash();
+            if (entry != null && entry.matchesContent(size, config, contentHash)) {
+                if (cacheable) {
+                    cache.revalidate(key, entry, modifiedNanos);
+                }
+                hits.increment();
+                return entry.readResult();
+            }
+        }
+
+        misses.increment();
+        AnalysisResult result = super.analyzeFile(key);
+        if (cacheable) {
+            cache.put(key, size, modifiedNanos, config, contentHash, result);
+        }
+        return result;
+    }
+
+    public AnalysisResultCache getCache() { return cache; }
+    public long getHitCount() { return hits.sum(); }
+    public long getMissCount() { return misses.sum(); }
+}
@@ -0,0 +1,179 @@
+package javaIO;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+class CachingTextFileAnalyzerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testWarmRunUsesPersistedCache() throws IOException {
+        Path index = tempDir.resolve("cache.idx");
+        Path directory = Files.createDirectories(tempDir.resolve("data"));
+        for (int i = 0; i < 20; i++) {
+            writeOld(directory.resolve("file" + i + ".txt"), "alpha beta " + i + "\nline " + i + "\n", 60);
+        }
+
+        TextFileAnalyzer.AnalysisResult cold;
+        try (AnalysisResultCache cache = new AnalysisResultCache(index, 1000, 1 << 20)) {
+            CachingTextFileAnalyzer analyzer = new CachingTextFileAnalyzer(10, 8, cache, false);
+            cold = new BatchTextAnalyzer(analyzer, 4).analyzeDirectory(directory).getAggregate();
+            assertEquals(0, analyzer.getHitCount());
+            assertEquals(20, analyzer.getMissCount());
+        }
+
+        try (AnalysisResultCache cache = new AnalysisResultCache(index, 1000, 1 << 20)) {
+            assertEquals(20, cache.getEntryCount());
+            CachingTextFileAnalyzer analyzer = new CachingTextFileAnalyzer(10, 8, cache, false);
+            TextFileAnalyzer.AnalysisResult warm = new BatchTextAnalyzer(analyzer, 4).analyzeDirectory(directory).getAggregate();
+            assertEquals(20, analyzer.getHitCount());
+            assertEquals(0, analyzer.getMissCount());
+
+            assertEquals(cold.getLineCount(), warm.getLineCount());
+            assertEquals(cold.getWordCount(), warm.getWordCount());
+            assertEquals(cold.getCharFrequency(), warm.getCharFrequency());
+            assertEquals(cold.getTopWords(3).toString(), warm.getTopWords(3).toString());
+            assertEquals(cold.getDistinctWords().estimate(), warm.getDistinctWords().estimate());
+
+            // Другие настройки анализатора — промах, а не чужой результат
+            CachingTextFileAnalyzer plain = new CachingTextFileAnalyzer(cache);
+            assertNull(plain.analyzeFile(directory.resolve("file0.txt").toString()).getWordSummary());
+            assertEquals(1, plain.getMissCount());
+        }
+    }
+
+    @Test
+    void testChangedAndRecentFilesAreReanalyzed() throws IOException {
+        Path file = tempDir.resolve("data.txt");
+        writeOld(file, "one two\n", 60);
+
+        try (AnalysisResultCache cache = new AnalysisResultCache(tempDir.resolve("cache.idx"), 10, 1 << 20)) {
+            CachingTextFileAnalyzer analyzer = new CachingTextFileAnalyzer(cache);
+            assertEquals(2, analyzer.analyzeFile(file.toString()).getWordCount());
+            assertEquals(2, analyzer.analyzeFile(file.toString()).getWordCount());
+            assertEquals(1, analyzer.getHitCount());
+
+            writeOld(file, "one two three\n", 30);
+            assertEquals(3, analyzer.analyzeFile(file.toString()).getWordCount());
+            assertEquals(2, analyzer.getMissCount());
+
+            // Только что изменённый файл не кэшируется
+            Files.writeString(file, "four\n");
+            assertEquals(1, analyzer.analyzeFile(file.toString()).getWordCount());
+            assertEquals(1, analyzer.analyzeFile(file.toString()).getWordCount());
+            assertEquals(4, analyzer.getMissCount());
+        }
+    }
+
+    @Test
+    void testContentHashSurvivesTouch() throws IOException {
+        Path file = tempDir.resolve("data.txt");
+        writeOld(file, "same content\n", 60);
+
+        try (AnalysisResultCache cache = new AnalysisResultCache(tempDir.resolve("cache.idx"), 10, 1 << 20)) {
+            CachingTextFileAnalyzer analyzer = new CachingTextFileAnalyzer(0, 0, cache, true);
+            analyzer.analyzeFile(file.toString());
+
+            Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(10, ChronoUnit.MINUTES)));
+            assertEquals(2, analyzer.analyzeFile(file.toString()).getWordCount());
+            assertEquals(1, analyzer.getHitCount());
+
+            writeOld(file, "same contenT\n", 5);
+            analyzer.analyzeFile(file.toString());
+            assertEquals(2, analyzer.getMissCount());
+        }
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsed() throws IOException {
+        Path[] files = new Path[4];
+        for (int i = 0; i < files.length; i++) {
+            files[i] = writeOld(tempDir.resolve("f" + i + ".txt"), "text " + i + "\n", 60);
+        }
+
+        try (AnalysisResultCache cache = new AnalysisResultCache(tempDir.resolve("cache.idx"), 3, 1 << 20)) {
+            CachingTextFileAnalyzer analyzer = new CachingTextFileAnalyzer(cache);
+            analyzer.analyzeFile(files[0].toString());
+            analyzer.analyzeFile(files[1].toString());
+            analyzer.analyzeFile(files[2].toString());
+            analyzer.analyzeFile(files[0].toString());
+            analyzer.analyzeFile(files[3].toString());
+
+            assertEquals(3, cache.getEntryCount());
+            assertEquals(1, cache.getEvictionCount());
+            assertNull(cache.get(files[1].toRealPath().toString()));
+            assertNotNull(cache.get(files[0].toRealPath().toString()));
+
+            long perEntry = cache.getTotalBytes() / 3;
+            try (AnalysisResultCache small = new AnalysisResultCache(tempDir.resolve("small.idx"), 100, perEntry * 2)) {
+                CachingTextFileAnalyzer limited = new CachingTextFileAnalyzer(small);
+                for (Path file : files) {
+                    limited.analyzeFile(file.toString());
+                }
+                assertTrue(small.getTotalBytes() <= perEntry * 2);
+                assertTrue(small.getEntryCount() < files.length);
+            }
+        }
+    }
+
+    @Test
+    void testCorruptIndexIsDiscarded() throws IOException {
+        Path index = tempDir.resolve("cache.idx");
+        Path file = writeOld(tempDir.resolve("data.txt"), "one two\n", 60);
+        try (AnalysisResultCache cache = new AnalysisResultCache(index, 10, 1 << 20)) {
+            new CachingTextFileAnalyzer(cache).analyzeFile(file.toString());
+        }
+
+        byte[] saved = Files.readAllBytes(index);
+        Files.write(index, Arrays.copyOf(saved, saved.length / 2));
+        try (AnalysisResultCache cache = new AnalysisResultCache(index, 10, 1 << 20)) {
+            assertEquals(0, cache.getEntryCount());
+            CachingTextFileAnalyzer analyzer = new CachingTextFileAnalyzer(cache);
+            assertEquals(2, analyzer.analyzeFile(file.toString()).getWordCount());
+            assertEquals(1, analyzer.getMissCount());
+        }
+
+        Files.write(index, new byte[] {1, 2, 3});
+        try (AnalysisResultCache cache = new AnalysisResultCache(index, 10, 1 << 20)) {
+            assertEquals(0, cache.getEntryCount());
+        }
+    }
+
+    @Test
+    void testEvictionsOnLoadArePersisted() throws IOException {
+        Path index = tempDir.resolve("cache.idx");
+        try (AnalysisResultCache cache = new AnalysisResultCache(index, 10, 1 << 20)) {
+            CachingTextFileAnalyzer analyzer = new CachingTextFileAnalyzer(cache);
+            for (int i = 0; i < 3; i++) {
+                analyzer.analyzeFile(writeOld(tempDir.resolve("f" + i + ".txt"), "text " + i + "\n", 60).toString());
+            }
+        }
+
+        try (AnalysisResultCache cache = new AnalysisResultCache(index, 1, 1 << 20)) {
+            assertEquals(1, cache.getEntryCount());
+            assertEquals(2, cache.getEvictionCount());
+        }
+
+        try (AnalysisResultCache cache = new AnalysisResultCache(index, 10, 1 << 20)) {
+            assertEquals(1, cache.getEntryCount());
+            assertNotNull(cache.get(tempDir.resolve("f2.txt").toRealPath().toString()));
+        }
+    }
+
+    private static Path writeOld(Path file, String content, int minutesAgo) throws IOException {
+        Files.writeString(file, content);
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(minutesAgo, ChronoUnit.MINUTES)));
+        return file;
+    }
+}
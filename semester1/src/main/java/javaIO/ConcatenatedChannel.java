@@ -0,0 +1,187 @@
+package javaIO;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Канал только для чтения, представляющий упорядоченный список частей как один файл.
+ * Позволяет читать разбитый файл напрямую, не записывая его объединённую копию на диск.
+ * Часть, в которую попадает позиция, ищется двоичным поиском по смещениям; одновременно открыта одна часть.
+ */
+public class ConcatenatedChannel implements SeekableByteChannel {
+
+    private final List<Path> parts;
+    private final long[] offsets;
+
+    private long position;
+    private boolean open = true;
+    private int currentIndex = -1;
+    private FileChannel currentChannel;
+
+    private ConcatenatedChannel(List<Path> parts, long[] offsets) {
+        this.parts = parts;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Открывает канал поверх частей; размеры частей читаются один раз при открытии
+     * @param partPaths части в порядке следования
+     */
+    public static ConcatenatedChannel open(List<Path> partPaths) throws IOException {
+        long[] offsets = new long[partPaths.size() + 1];
+        for (int i = 0; i < partPaths.size(); i++) {
+            offsets[i + 1] = offsets[i] + Files.size(partPaths.get(i));
+        }
+        return new ConcatenatedChannel(List.copyOf(partPaths), offsets);
+    }
+
+    /**
+     * Открывает канал по манифесту, не обращаясь к файлам частей до первого чтения
+     */
+    public static ConcatenatedChannel open(SplitManifest manifest) {
+        List<SplitManifest.Part> manifestParts = manifest.getParts();
+        List<Path> partPaths = new ArrayList<>(manifestParts.size());
+        long[] offsets = new long[manifestParts.size() + 1];
+        for (int i = 0; i < manifestParts.size(); i++) {
+            partPaths.add(manifest.resolve(manifestParts.get(i)));
+            offsets[i + 1] = offsets[i] + manifestParts.get(i).getLength();
+        }
+        return new ConcatenatedChannel(partPaths, offsets);
+    }
+
+    /**
+     * Поток поверх канала; закрытие потока закрывает канал
+     */
+    public InputStream newInputStream() {
+        return Channels.newInputStream(this);
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        ensureOpen();
+        long size = size();
+        if (position >= size) {
+            return -1;
+        }
+
+        int totalRead = 0;
+        int index = partIndex(position);
+        while (dst.hasRemaining() && position < size) {
+            while (offsets[index + 1] <= position) {
+                index++;
+            }
+            FileChannel channel = channelFor(index);
+
+            long partRemaining = offsets[index + 1] - position;
+            int originalLimit = dst.limit();
+            if (dst.remaining() > partRemaining) {
+                dst.limit(dst.position() + (int) partRemaining);
+            }
+
+            int bytesRead;
+            try {
+                bytesRead = channel.read(dst, position - offsets[index]);
+            } finally {
+                dst.limit(originalLimit);
+            }
+            if (bytesRead < 0) {
+                throw new EOFException("Часть короче ожидаемого: " + parts.get(index));
+            }
+
+            position += bytesRead;
+            totalRead += bytesRead;
+        }
+        return totalRead;
+    }
+
+    @Override
+    public int write(ByteBuffer src) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public SeekableByteChannel position(long newPosition) throws IOException {
+        ensureOpen();
+        if (newPosition < 0) {
+            throw new IllegalArgumentException("Позиция не может быть отрицательной: " + newPosition);
+        }
+        position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        ensureOpen();
+        return offsets[offsets.length - 1];
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long size) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() throws IOException {
+        open = false;
+        if (currentChannel != null) {
+            currentChannel.close();
+            currentChannel = null;
+        }
+    }
+
+    /**
+     * Индекс последней части, начинающейся не позже pos (у пустых частей начала совпадают)
+     */
+    private int partIndex(long pos) {
+        int index = Arrays.binarySearch(offsets, 0, offsets.length - 1, pos);
+        if (index < 0) {
+            return -index - 2;
+        }
+        while (index + 1 < offsets.length - 1 && offsets[index + 1] == pos) {
+            index++;
+        }
+        return index;
+    }
+
+    private FileChannel channelFor(int index) throws IOException {
+        if (index != currentIndex) {
+            if (currentChannel != null) {
+                currentChannel.close();
+                currentChannel = null;
+            }
+            currentChannel = FileChannel.open(parts.get(index), StandardOpenOption.READ);
+            currentIndex = index;
+        }
+        return currentChannel;
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package javaIO;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+class ConcatenatedChannelTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testReadsPartsAsOneFile() throws IOException {
+        FileProcessor processor = new FileProcessor();
+        byte[] testData = createTestFile("whole.dat", 10_000);
+
+        List<Path> parts = processor.splitFile(tempDir.resolve("whole.dat").toString(),
+                tempDir.resolve("parts").toString(), 3000);
+
+        try (ConcatenatedChannel channel = processor.openMerged(parts);
+             InputStream in = channel.newInputStream()) {
+            assertEquals(testData.length, channel.size());
+            assertArrayEquals(testData, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void testRandomAccessAcrossPartBoundaries() throws IOException {
+        FileProcessor processor = new FileProcessor();
+        byte[] testData = createTestFile("random.dat", 5000);
+
+        SplitManifest manifest = processor.splitFileWithManifest(tempDir.resolve("random.dat").toString(),
+                tempDir.resolve("manifest_parts").toString(), 700);
+
+        try (ConcatenatedChannel channel = ConcatenatedChannel.open(manifest)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1000);
+            channel.position(1350);
+            assertEquals(1000, channel.read(buffer));
+            assertArrayEquals(Arrays.copyOfRange(testData, 1350, 2350), buffer.array());
+            assertEquals(2350, channel.position());
+
+            buffer.clear();
+            channel.position(4500);
+            assertEquals(500, channel.read(buffer));
+            assertEquals(-1, channel.read(buffer));
+        }
+    }
+
+    @Test
+    void testSkipsEmptyParts() throws IOException {
+        Path first = Files.write(tempDir.resolve("a"), new byte[] {1, 2});
+        Path empty = Files.write(tempDir.resolve("b"), new byte[0]);
+        Path last = Files.write(tempDir.resolve("c"), new byte[] {3});
+
+        try (ConcatenatedChannel channel = ConcatenatedChannel.open(List.of(first, empty, last))) {
+            channel.position(2);
+            ByteBuffer buffer = ByteBuffer.allocate(4);
+            assertEquals(1, channel.read(buffer));
+            assertEquals(3, buffer.get(0));
+
+            assertThrows(NonWritableChannelException.class,
+                    () -> channel.write(ByteBuffer.allocate(1)));
+        }
+    }
+
+    private byte[] createTestFile(String name, int size) throws IOException {
+        byte[] data = new byte[size];
+        new Random().nextBytes(data);
+        Files.write(tempDir.resolve(name), data);
+        return data;
+    }
+}
@@ -0,0 +1,94 @@
+package javaIO;
+
+/**
+ * Разбиение данных на чанки по содержимому (FastCDC).
+ * Границы определяются скользящим Gear-хешем, поэтому вставка байта в начало файла
+ * смещает только соседние границы, а остальные чанки остаются прежними.
+ */
+public class ContentDefinedChunker {
+
+    private static final long[] GEAR = createGearTable();
+
+    private final int minSize;
+    private final int avgSize;
+    private final int maxSize;
+    private final long maskSmall;
+    private final long maskLarge;
+
+    /**
+     * @param minSize минимальный размер чанка
+     * @param avgSize ожидаемый средний размер чанка
+     * @param maxSize максимальный размер чанка
+     */
+    public ContentDefinedChunker(int minSize, int avgSize, int maxSize) {
+        if (minSize <= 0 || minSize > avgSize || avgSize > maxSize) {
+            throw new IllegalArgumentException(String.format(
+                    "Нужно 0 < min <= avg <= max, получено min=%d, avg=%d, max=%d", minSize, avgSize, maxSize));
+        }
+        this.minSize = minSize;
+        this.avgSize = avgSize;
+        this.maxSize = maxSize;
+
+        // Нормализованное разбиение: до среднего размера граница ищется строже, после — мягче
+        int bits = 31 - Integer.numberOfLeadingZeros(avgSize);
+        this.maskSmall = highBitsMask(bits + 1);
+        this.maskLarge = highBitsMask(Math.max(bits - 1, 1));
+    }
+
+    public int getMinSize() { return minSize; }
+    public int getAvgSize() { return avgSize; }
+    public int getMaxSize() { return maxSize; }
+
+    /**
+     * Находит длину следующего чанка
+     * @param data массив с данными
+     * @param offset начало ещё не разбитых данных
+     * @param length количество доступных байт; если это не конец потока, должно быть не меньше maxSize
+     * @return длина чанка, начинающегося с offset
+     */
+    public int nextChunkLength(byte[] data, int offset, int length) {
+        if (length <= minSize) {
+            return length;
+        }
+
+        int limit = Math.min(length, maxSize);
+        int normal = Math.min(limit, avgSize);
+        long hash = 0;
+        int i = minSize;
+
+        for (; i < normal; i++) {
+            hash = (hash << 1) + GEAR[data[offset + i] & 0xFF];
+            if ((hash & maskSmall) == 0) {
+                return i + 1;
+            }
+        }
+        for (; i < limit; i++) {
+            hash = (hash << 1) + GEAR[data[offset + i] & 0xFF];
+            if ((hash & maskLarge) == 0) {
+                return i + 1;
+            }
+        }
+        return limit;
+    }
+
+    private static long highBitsMask(int bits) {
+        return -1L << (64 - bits);
+    }
+
+    /**
+     * Таблица должна быть одинаковой между запусками, иначе границы чанков не совпадут,
+     * поэтому она заполняется детерминированным splitmix64
+     */
+    private static long[] createGearTable() {
+        long[] table = new long[256];
+        long state = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < table.length; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            long z = state;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            table[i] = z ^ (z >>> 31);
+        }
+        return table;
+    }
+}
@@ -0,0 +1,128 @@
+package javaIO;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Потокобезопасный пул direct-буферов, разбитый на классы размеров (степени двойки от 4 КБ).
+ * Повторное использование буферов избавляет от выделения нативной памяти на каждый вызов
+ * и от пауз GC, которые вызывает освобождение direct-буферов через Cleaner.
+ * Буфер после release больше использовать нельзя, возвращать его дважды тоже нельзя.
+ */
+public class DirectBufferPool {
+
+    public static final int MIN_BUFFER_SIZE = 4096;
+
+    private static final int MIN_CLASS_SHIFT = Integer.numberOfTrailingZeros(MIN_BUFFER_SIZE);
+    private static final DirectBufferPool SHARED = new DirectBufferPool(64 << 20, 256L << 20);
+
+    private final int maxBufferSize;
+    private final long maxPooledBytes;
+    private final List<ConcurrentLinkedDeque<ByteBuffer>> classes;
+    private final AtomicLong pooledBytes = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param maxBufferSize максимальный размер буфера, который попадает в пул; большие выделяются без пула
+     * @param maxPooledBytes сколько байт всего может лежать в пуле; лишние буферы отдаются GC
+     */
+    public DirectBufferPool(int maxBufferSize, long maxPooledBytes) {
+        if (maxBufferSize < MIN_BUFFER_SIZE || maxPooledBytes < 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Неверные ограничения пула: maxBufferSize=%d, maxPooledBytes=%d", maxBufferSize, maxPooledBytes));
+        }
+        this.maxBufferSize = Integer.highestOneBit(maxBufferSize);
+        this.maxPooledBytes = maxPooledBytes;
+        int classCount = classIndex(this.maxBufferSize) + 1;
+        this.classes = new ArrayList<>(classCount);
+        for (int i = 0; i < classCount; i++) {
+            classes.add(new ConcurrentLinkedDeque<>());
+        }
+    }
+
+    /**
+     * Общий пул пакета javaIO: буферы до 64 МБ, не больше 256 МБ в пуле
+     */
+    public static DirectBufferPool shared() {
+        return SHARED;
+    }
+
+    /**
+     * Выдаёт буфер ёмкостью не меньше size. Позиция 0, limit равен size, порядок байт BIG_ENDIAN.
+     */
+    public ByteBuffer acquire(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Размер буфера не может быть отрицательным: " + size);
+        }
+
+        int capacity = classCapacity(size);
+        if (capacity > maxBufferSize) {
+            misses.increment();
+            return ByteBuffer.allocateDirect(size);
+        }
+
+        ByteBuffer buffer = classes.get(classIndex(capacity)).pollFirst();
+        if (buffer == null) {
+            misses.increment();
+            buffer = ByteBuffer.allocateDirect(capacity);
+        } else {
+            hits.increment();
+            pooledBytes.addAndGet(-capacity);
+        }
+
+        buffer.clear().limit(size);
+        return buffer.order(ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * Возвращает буфер в пул. Буферы не из пула (heap, нестандартной ёмкости, слишком большие)
+     * и буферы сверх лимита пула просто отбрасываются.
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect() || buffer.isReadOnly()) {
+            return;
+        }
+        int capacity = buffer.capacity();
+        if (capacity < MIN_BUFFER_SIZE || capacity > maxBufferSize || Integer.bitCount(capacity) != 1) {
+            return;
+        }
+
+        long current;
+        do {
+            current = pooledBytes.get();
+            if (current + capacity > maxPooledBytes) {
+                return;
+            }
+        } while (!pooledBytes.compareAndSet(current, current + capacity));
+
+        classes.get(classIndex(capacity)).offerFirst(buffer);
+    }
+
+    public long getHits() { return hits.sum(); }
+    public long getMisses() { return misses.sum(); }
+    public long getPooledBytes() { return pooledBytes.get(); }
+
+    @Override
+    public String toString() {
+        return String.format("DirectBufferPool{hits=%d, misses=%d, pooled=%d bytes}",
+                getHits(), getMisses(), getPooledBytes());
+    }
+
+    private static int classCapacity(int size) {
+        if (size <= MIN_BUFFER_SIZE) {
+            return MIN_BUFFER_SIZE;
+        }
+        int capacity = Integer.highestOneBit(size - 1) << 1;
+        return capacity > 0 ? capacity : Integer.MAX_VALUE;
+    }
+
+    private static int classIndex(int capacity) {
+        return Integer.numberOfTrailingZeros(capacity) - MIN_CLASS_SHIFT;
+    }
+}
@@ -0,0 +1,73 @@
+package javaIO;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+class DirectBufferPoolTest {
+
+    @Test
+    void testBuffersAreReusedBySizeClass() {
+        DirectBufferPool pool = new DirectBufferPool(1 << 20, 1 << 22);
+
+        ByteBuffer first = pool.acquire(5000);
+        assertTrue(first.isDirect());
+        assertEquals(8192, first.capacity());
+        assertEquals(5000, first.limit());
+        pool.release(first);
+
+        ByteBuffer second = pool.acquire(7000);
+        assertSame(first, second);
+        assertEquals(7000, second.limit());
+        assertEquals(0, second.position());
+
+        assertEquals(1, pool.getHits());
+        assertEquals(1, pool.getMisses());
+    }
+
+    @Test
+    void testCapsAreRespected() {
+        DirectBufferPool pool = new DirectBufferPool(16384, 16384);
+
+        ByteBuffer huge = pool.acquire(100_000);
+        assertEquals(100_000, huge.capacity());
+        pool.release(huge);
+        assertEquals(0, pool.getPooledBytes());
+
+        pool.release(pool.acquire(16384));
+        pool.release(ByteBuffer.allocateDirect(16384));
+        assertEquals(16384, pool.getPooledBytes());
+
+        pool.release(ByteBuffer.allocate(4096));
+        assertEquals(16384, pool.getPooledBytes());
+    }
+
+    @Test
+    void testConcurrentAcquireAndRelease() throws InterruptedException {
+        DirectBufferPool pool = new DirectBufferPool(1 << 16, 1 << 24);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        for (int t = 0; t < 8; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    List<ByteBuffer> buffers = new ArrayList<>();
+                    for (int size = 1000; size <= 64_000; size *= 4) {
+                        buffers.add(pool.acquire(size));
+                    }
+                    buffers.forEach(pool::release);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(8 * 1000 * 4, pool.getHits() + pool.getMisses());
+        assertTrue(pool.getHits() > pool.getMisses());
+    }
+}
@@ -0,0 +1,55 @@
+package javaIO;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Событие Java Flight Recorder на операцию FileProcessor целиком
+ */
+@Name("javaIO.FileOperation")
+@Label("File Operation")
+@Category({"javaIO", "FileProcessor"})
+@Description("Разбиение, объединение, копирование или сканирование файла")
+class FileOperationEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Path")
+    String path;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Parts")
+    int parts;
+
+    @Label("Open Time")
+    @Timespan
+    long openNanos;
+
+    @Label("Read Time")
+    @Timespan
+    long readNanos;
+
+    @Label("Write Time")
+    @Timespan
+    long writeNanos;
+
+    @Label("Transfer Time")
+    @Timespan
+    long transferNanos;
+
+    @Label("Close Time")
+    @Timespan
+    long closeNanos;
+
+    @Label("Failed")
+    boolean failed;
+}
@@ -0,0 +1,26 @@
+package javaIO;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Событие Java Flight Recorder на одну часть операции FileProcessor
+ */
+@Name("javaIO.FilePart")
+@Label("File Part")
+@Category({"javaIO", "FileProcessor"})
+class FilePartEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Part Number")
+    int partNumber;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+}
@@ -1,15 +1,75 @@
 package javaIO;
 
+import java.io.BufferedReader;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javaIO.FileProcessorListener.Operation;
+import javaIO.FileProcessorListener.Phase;
 
 public class FileProcessor {
 
+    private static final int COPY_BUFFER_SIZE = 1 << 20;
+    private static final int RECORD_LOOKAHEAD_SIZE = 64 * 1024;
+    private static final ByteBuffer END_OF_STREAM = ByteBuffer.allocate(0);
+    private static final String COMPRESSED_PART_SUFFIX = ".gz";
+
+    private final DirectBufferPool bufferPool;
+    private final FileProcessorListener listener;
+
+    public FileProcessor() {
+        this(DirectBufferPool.shared());
+    }
+
+    /**
+     * @param bufferPool пул direct-буферов, из которого берутся буферы копирования
+     */
+    public FileProcessor(DirectBufferPool bufferPool) {
+        this(bufferPool, FileProcessorListener.NONE);
+    }
+
+    /**
+     * @param listener слушатель, которому сообщается время фаз и частей разбиения, объединения,
+     *                 копирования и сканирования; например {@link FileProcessorMetrics}
+     */
+    public FileProcessor(FileProcessorListener listener) {
+        this(DirectBufferPool.shared(), listener);
+    }
+
+    public FileProcessor(DirectBufferPool bufferPool, FileProcessorListener listener) {
+        this.bufferPool = bufferPool;
+        this.listener = listener;
+    }
+
     /**
      * Разбивает файл на части указанного размера
      * @param sourcePath путь к исходному файлу
@@ -31,34 +91,473 @@ public class FileProcessor {
         String fileName = sourceFile.getFileName().toString();
         long fileSize = Files.size(sourceFile);
 
-        try (FileChannel sourceChannel = FileChannel.open(sourceFile, StandardOpenOption.READ)) {
+        try (OperationRecorder recorder = new OperationRecorder(listener, Operation.SPLIT, sourceFile);
+             FileChannel sourceChannel = FileChannel.open(sourceFile, StandardOpenOption.READ)) {
             int partNumber = 1;
             long position = 0;
 
-            ByteBuffer buffer = ByteBuffer.allocateDirect(partSize);
+            ByteBuffer buffer = bufferPool.acquire(partSize);
+            try {
+                while (position < fileSize) {
+                    Path partPath = outputDirectory.resolve(partFileName(fileName, partNumber));
+                    OperationRecorder.Part part = recorder.startPart(partNumber);
+                    long phaseStart = System.nanoTime();
+                    int bytesRead;
 
-            while (position < fileSize) {
-                String partFileName = String.format("%s.part%d", fileName, partNumber);
-                Path partPath = outputDirectory.resolve(partFileName);
+                    try (FileChannel partChannel = FileChannel.open(partPath,
+                            StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                        phaseStart = recorder.phase(Phase.OPEN, phaseStart, 0);
 
-                try (FileChannel partChannel = FileChannel.open(partPath,
-                        StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                        buffer.clear().limit(partSize);
+                        bytesRead = sourceChannel.read(buffer, position);
+                        phaseStart = recorder.phase(Phase.READ, phaseStart, Math.max(0, bytesRead));
 
-                    buffer.clear();
-                    int bytesRead = sourceChannel.read(buffer, position);
+                        if (bytesRead > 0) {
+                            buffer.flip();
+                            partChannel.write(buffer);
+                            phaseStart = recorder.phase(Phase.WRITE, phaseStart, bytesRead);
+                            partPaths.add(partPath);
+                            position += bytesRead;
+                            partNumber++;
+                        }
+                    }
+                    recorder.phase(Phase.CLOSE, phaseStart, 0);
+                    part.end(Math.max(0, bytesRead));
+                }
+            } finally {
+                bufferPool.release(buffer);
+            }
+            recorder.complete();
+        }
 
-                    if (bytesRead > 0) {
-                        buffer.flip();
-                        partChannel.write(buffer);
+        return partPaths;
+    }
+
+    /**
+     * Параллельно разбивает файл на части, копируя диапазоны через transferTo без буфера в user space
+     * @param sourcePath путь к исходному файлу
+     * @param outputDir директория для сохранения частей
+     * @param partSize размер каждой части в байтах (может превышать 2 ГБ)
+     * @param parallelism количество потоков, одновременно записывающих части
+     * @return список путей к созданным частям в порядке следования
+     */
+    public List<Path> splitFileParallel(String sourcePath, String outputDir, long partSize,
+                                        int parallelism) throws IOException {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Количество потоков должно быть положительным: " + parallelism);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            return splitFileParallel(sourcePath, outputDir, partSize, executor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Параллельно разбивает файл на части на переданном пуле потоков.
+     * Пул не закрывается, им управляет вызывающий код.
+     */
+    public List<Path> splitFileParallel(String sourcePath, String outputDir, long partSize,
+                                        ExecutorService executor) throws IOException {
+        if (partSize <= 0) {
+            throw new IllegalArgumentException("Размер части должен быть положительным: " + partSize);
+        }
+
+        Path sourceFile = Paths.get(sourcePath);
+
+        if (!Files.exists(sourceFile)) {
+            throw new NoSuchFileException("Исходный файл не найден: " + sourcePath);
+        }
+
+        Path outputDirectory = Paths.get(outputDir);
+        Files.createDirectories(outputDirectory);
+
+        String fileName = sourceFile.getFileName().toString();
+
+        try (FileChannel sourceChannel = FileChannel.open(sourceFile, StandardOpenOption.READ)) {
+            long fileSize = sourceChannel.size();
+            int partCount = (int) ((fileSize + partSize - 1) / partSize);
+
+            long[] boundaries = new long[partCount + 1];
+            for (int i = 1; i <= partCount; i++) {
+                boundaries[i] = Math.min(boundaries[i - 1] + partSize, fileSize);
+            }
+
+            return copyParts(sourceChannel, sourceFile, boundaries, outputDirectory, fileName, executor);
+        }
+    }
+
+    /**
+     * Разбивает файл на части, сдвигая каждую границу на конец ближайшего следующего перевода строки,
+     * чтобы ни одна строка не попала в две части
+     * @param sourcePath путь к исходному файлу
+     * @param outputDir директория для сохранения частей
+     * @param partSize желаемый размер части в байтах
+     * @param parallelism количество потоков, одновременно записывающих части
+     * @return список путей к созданным частям в порядке следования
+     */
+    public List<Path> splitFileOnLines(String sourcePath, String outputDir, long partSize,
+                                       int parallelism) throws IOException {
+        return splitFileOnRecords(sourcePath, outputDir, partSize, new byte[] {'\n'}, parallelism);
+    }
+
+    /**
+     * Разбивает файл на части по границам записей: каждая граница сдвигается на конец первого разделителя,
+     * который заканчивается не раньше желаемой границы. Разделитель ищется небольшим чтением вперёд,
+     * поэтому каждая часть разбирается независимо и лишь немного превышает partSize.
+     * @param delimiter разделитель записей, например {@code "\r\n"} или {@code "\n"} в виде байт
+     */
+    public List<Path> splitFileOnRecords(String sourcePath, String outputDir, long partSize,
+                                         byte[] delimiter, int parallelism) throws IOException {
+        if (partSize <= 0) {
+            throw new IllegalArgumentException("Размер части должен быть положительным: " + partSize);
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Количество потоков должно быть положительным: " + parallelism);
+        }
+
+        Path sourceFile = Paths.get(sourcePath);
+
+        if (!Files.exists(sourceFile)) {
+            throw new NoSuchFileException("Исходный файл не найден: " + sourcePath);
+        }
+
+        Path outputDirectory = Paths.get(outputDir);
+        Files.createDirectories(outputDirectory);
+
+        String fileName = sourceFile.getFileName().toString();
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try (FileChannel sourceChannel = FileChannel.open(sourceFile, StandardOpenOption.READ)) {
+            long[] boundaries = recordBoundaries(sourceChannel, partSize, delimiter);
+            return copyParts(sourceChannel, sourceFile, boundaries, outputDirectory, fileName, executor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Вычисляет границы частей по записям
+     * @return массив {0, b1, ..., size}: часть i занимает [boundaries[i], boundaries[i + 1])
+     */
+    static long[] recordBoundaries(FileChannel channel, long partSize, byte[] delimiter) throws IOException {
+        if (delimiter.length == 0) {
+            throw new IllegalArgumentException("Разделитель записей не может быть пустым");
+        }
+
+        long fileSize = channel.size();
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(0L);
+
+        ByteBuffer lookAhead = ByteBuffer.allocate(Math.max(RECORD_LOOKAHEAD_SIZE, delimiter.length * 2));
+        long boundary = 0;
+        while (boundary < fileSize) {
+            long target = boundary + partSize;
+            if (target >= fileSize) {
+                boundary = fileSize;
+            } else {
+                long searchFrom = Math.max(boundary, target - delimiter.length + 1);
+                long found = indexOf(channel, delimiter, searchFrom, fileSize, lookAhead);
+                boundary = found < 0 ? fileSize : found + delimiter.length;
+            }
+            boundaries.add(boundary);
+        }
+
+        long[] result = new long[boundaries.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = boundaries.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Ищет разделитель, начиная с позиции from, окнами размера буфера с перекрытием на длину разделителя
+     * @return позиция начала разделителя или -1, если до конца файла его нет
+     */
+    private static long indexOf(FileChannel channel, byte[] delimiter, long from, long fileSize,
+                                ByteBuffer window) throws IOException {
+        byte[] data = window.array();
+        long windowStart = from;
+
+        while (windowStart + delimiter.length <= fileSize) {
+            window.clear();
+            window.limit((int) Math.min(window.capacity(), fileSize - windowStart));
+            while (window.hasRemaining()) {
+                if (channel.read(window, windowStart + window.position()) < 0) {
+                    break;
+                }
+            }
+            int length = window.position();
+            if (length < delimiter.length) {
+                return -1;
+            }
+
+            for (int i = 0; i + delimiter.length <= length; i++) {
+                if (data[i] == delimiter[0] && matchesAt(data, i, delimiter)) {
+                    return windowStart + i;
+                }
+            }
+
+            windowStart += length - delimiter.length + 1;
+        }
+        return -1;
+    }
+
+    private static boolean matchesAt(byte[] data, int offset, byte[] pattern) {
+        for (int j = 1; j < pattern.length; j++) {
+            if (data[offset + j] != pattern[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Параллельно копирует диапазоны [boundaries[i], boundaries[i + 1]) в отдельные части
+     */
+    private List<Path> copyParts(FileChannel sourceChannel, Path sourceFile, long[] boundaries,
+                                 Path outputDirectory, String fileName, ExecutorService executor) throws IOException {
+        try (OperationRecorder recorder = new OperationRecorder(listener, Operation.SPLIT, sourceFile)) {
+            List<Callable<Path>> tasks = new ArrayList<>(boundaries.length - 1);
+
+            for (int i = 0; i + 1 < boundaries.length; i++) {
+                long start = boundaries[i];
+                long count = boundaries[i + 1] - start;
+                int partNumber = i + 1;
+                Path partPath = outputDirectory.resolve(partFileName(fileName, partNumber));
+
+                tasks.add(() -> {
+                    OperationRecorder.Part part = recorder.startPart(partNumber);
+                    copyRange(sourceChannel, start, count, partPath, recorder);
+                    part.end(count);
+                    return partPath;
+                });
+            }
+
+            List<Path> partPaths = invokeAll(executor, tasks);
+            recorder.complete();
+            return partPaths;
+        }
+    }
+
+    /**
+     * Разбивает поток на части по мере поступления данных, без размера заранее и без промежуточного файла
+     * @param source поток-источник, например stdin или распаковывающий поток
+     * @param outputDir директория для сохранения частей
+     * @param baseName имя, от которого строятся имена частей ({@code baseName.partN})
+     * @param partSize размер каждой части в байтах
+     * @return список путей к созданным частям
+     */
+    public List<Path> splitStream(InputStream source, String outputDir, String baseName,
+                                  long partSize) throws IOException {
+        return splitStream(Channels.newChannel(source), outputDir, baseName, partSize);
+    }
+
+    /**
+     * Разбивает канал на части по мере поступления данных. Используются два буфера: пока текущий поток
+     * читает в один, отдельный поток пишет другой в текущую часть, так что чтение и запись идут одновременно.
+     * Канал должен быть блокирующим; он читается до конца, но не закрывается.
+     */
+    public List<Path> splitStream(ReadableByteChannel source, String outputDir, String baseName,
+                                  long partSize) throws IOException {
+        if (partSize <= 0) {
+            throw new IllegalArgumentException("Размер части должен быть положительным: " + partSize);
+        }
+
+        Path outputDirectory = Paths.get(outputDir);
+        Files.createDirectories(outputDirectory);
+
+        BlockingQueue<ByteBuffer> freeBuffers = new ArrayBlockingQueue<>(2);
+        BlockingQueue<ByteBuffer> filledBuffers = new ArrayBlockingQueue<>(3);
+        freeBuffers.add(bufferPool.acquire(COPY_BUFFER_SIZE));
+        freeBuffers.add(bufferPool.acquire(COPY_BUFFER_SIZE));
+
+        ExecutorService writerThread = Executors.newSingleThreadExecutor();
+        try (OperationRecorder recorder = new OperationRecorder(listener, Operation.SPLIT,
+                outputDirectory.resolve(baseName))) {
+            Future<List<Path>> writer = writerThread.submit(
+                    () -> writeStreamParts(filledBuffers, freeBuffers, outputDirectory, baseName, partSize, recorder));
+
+            boolean endOfStream = false;
+            while (!endOfStream) {
+                ByteBuffer buffer = takeFreeBuffer(freeBuffers, writer);
+                buffer.clear();
+                while (buffer.hasRemaining()) {
+                    if (source.read(buffer) < 0) {
+                        endOfStream = true;
+                        break;
+                    }
+                }
+                buffer.flip();
+                (buffer.hasRemaining() ? filledBuffers : freeBuffers).put(buffer);
+            }
+            filledBuffers.put(END_OF_STREAM);
+
+            List<Path> partPaths = writer.get();
+            // Буферы возвращаются в пул только после штатного завершения записи, когда они точно свободны
+            freeBuffers.forEach(bufferPool::release);
+            recorder.complete();
+            return partPaths;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Разбиение потока прервано");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            writerThread.shutdownNow();
+        }
+    }
+
+    /**
+     * Берёт свободный буфер; если поток записи упал, не ждёт вечно, а пробрасывает его ошибку
+     */
+    private static ByteBuffer takeFreeBuffer(BlockingQueue<ByteBuffer> freeBuffers, Future<List<Path>> writer)
+            throws InterruptedException, ExecutionException {
+        while (true) {
+            ByteBuffer buffer = freeBuffers.poll(100, TimeUnit.MILLISECONDS);
+            if (buffer != null) {
+                return buffer;
+            }
+            if (writer.isDone()) {
+                writer.get();
+                throw new IllegalStateException("Поток записи завершился раньше конца данных");
+            }
+        }
+    }
+
+    /**
+     * Поток записи: пишет заполненные буферы в части, начиная новую часть при достижении partSize,
+     * и возвращает буферы для повторного заполнения
+     */
+    private static List<Path> writeStreamParts(BlockingQueue<ByteBuffer> filledBuffers,
+                                               BlockingQueue<ByteBuffer> freeBuffers, Path outputDirectory,
+                                               String baseName, long partSize,
+                                               OperationRecorder recorder) throws IOException, InterruptedException {
+        List<Path> partPaths = new ArrayList<>();
+        FileChannel partChannel = null;
+        OperationRecorder.Part part = null;
+        long partWritten = 0;
+
+        try {
+            while (true) {
+                ByteBuffer buffer = filledBuffers.take();
+                if (buffer == END_OF_STREAM) {
+                    if (part != null) {
+                        part.end(partWritten);
+                    }
+                    return partPaths;
+                }
+
+                while (buffer.hasRemaining()) {
+                    if (partChannel == null) {
+                        Path partPath = outputDirectory.resolve(partFileName(baseName, partPaths.size() + 1));
+                        partChannel = FileChannel.open(partPath, StandardOpenOption.CREATE,
+                                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
                         partPaths.add(partPath);
-                        position += bytesRead;
-                        partNumber++;
+                        part = recorder.startPart(partPaths.size());
+                        partWritten = 0;
+                    }
+
+                    int chunk = (int) Math.min(buffer.remaining(), partSize - partWritten);
+                    ByteBuffer slice = buffer.slice(buffer.position(), chunk);
+                    while (slice.hasRemaining()) {
+                        partChannel.write(slice);
+                    }
+                    buffer.position(buffer.position() + chunk);
+                    partWritten += chunk;
+
+                    if (partWritten == partSize) {
+                        partChannel.close();
+                        partChannel = null;
+                        part.end(partWritten);
+                        part = null;
                     }
                 }
+
+                freeBuffers.put(buffer);
+            }
+        } finally {
+            if (partChannel != null) {
+                partChannel.close();
             }
         }
+    }
 
-        return partPaths;
+    /**
+     * Разбивает файл на части и сохраняет рядом с ними манифест со смещением, длиной и CRC32C каждой части.
+     * Контрольная сумма считается по тем же байтам, которые пишутся в часть, без повторного чтения.
+     * @param sourcePath путь к исходному файлу
+     * @param outputDir директория для сохранения частей и манифеста
+     * @param partSize размер каждой части в байтах
+     * @return манифест разбиения
+     */
+    public SplitManifest splitFileWithManifest(String sourcePath, String outputDir, long partSize) throws IOException {
+        if (partSize <= 0) {
+            throw new IllegalArgumentException("Размер части должен быть положительным: " + partSize);
+        }
+
+        Path sourceFile = Paths.get(sourcePath);
+
+        if (!Files.exists(sourceFile)) {
+            throw new NoSuchFileException("Исходный файл не найден: " + sourcePath);
+        }
+
+        Path outputDirectory = Paths.get(outputDir);
+        Files.createDirectories(outputDirectory);
+
+        String fileName = sourceFile.getFileName().toString();
+        List<SplitManifest.Part> parts = new ArrayList<>();
+        ByteBuffer buffer = bufferPool.acquire((int) Math.min(partSize, COPY_BUFFER_SIZE));
+        CRC32C crc = new CRC32C();
+
+        try (OperationRecorder recorder = new OperationRecorder(listener, Operation.SPLIT, sourceFile);
+             FileChannel sourceChannel = FileChannel.open(sourceFile, StandardOpenOption.READ)) {
+            long fileSize = sourceChannel.size();
+            int partNumber = 1;
+
+            for (long position = 0; position < fileSize; position += partSize) {
+                long length = Math.min(partSize, fileSize - position);
+                OperationRecorder.Part recordedPart = recorder.startPart(partNumber);
+                String partFileName = partFileName(fileName, partNumber++);
+
+                try (FileChannel partChannel = FileChannel.open(outputDirectory.resolve(partFileName),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+                    crc.reset();
+                    long copied = 0;
+                    while (copied < length) {
+                        buffer.clear();
+                        buffer.limit((int) Math.min(buffer.capacity(), length - copied));
+                        int bytesRead = sourceChannel.read(buffer, position + copied);
+                        if (bytesRead <= 0) {
+                            throw new EOFException("Исходный файл короче ожидаемого: " + sourcePath);
+                        }
+                        buffer.flip();
+                        crc.update(buffer);
+                        buffer.rewind();
+                        while (buffer.hasRemaining()) {
+                            partChannel.write(buffer);
+                        }
+                        copied += bytesRead;
+                    }
+                }
+
+                parts.add(new SplitManifest.Part(partFileName, position, length, (int) crc.getValue()));
+                recordedPart.end(length);
+            }
+
+            SplitManifest manifest = new SplitManifest(fileName, fileSize, outputDirectory, parts);
+            manifest.write(manifest.defaultPath());
+            recorder.complete();
+            return manifest;
+        } finally {
+            bufferPool.release(buffer);
+        }
     }
 
     /**
@@ -69,33 +568,617 @@ public class FileProcessor {
     public void mergeFiles(List<Path> partPaths, String outputPath) throws IOException {
         Path outputFile = Paths.get(outputPath);
 
-        partPaths.sort(Comparator.comparing(this::extractPartNumber));
+        partPaths.sort(Comparator.comparing(FileProcessor::extractPartNumber));
 
-        try (FileChannel outputChannel = FileChannel.open(outputFile,
-                StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+        try (OperationRecorder recorder = new OperationRecorder(listener, Operation.MERGE, outputFile);
+             FileChannel outputChannel = FileChannel.open(outputFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
 
             for (Path partPath : partPaths) {
                 if (!Files.exists(partPath)) {
                     throw new NoSuchFileException("Часть файла не найдена: " + partPath);
                 }
 
+                OperationRecorder.Part part = recorder.startPart(extractPartNumber(partPath));
+                long phaseStart = System.nanoTime();
+                long transferred = 0;
+
                 try (FileChannel partChannel = FileChannel.open(partPath, StandardOpenOption.READ)) {
+                    phaseStart = recorder.phase(Phase.OPEN, phaseStart, 0);
                     long partSize = Files.size(partPath);
-                    long transferred = 0;
 
                     while (transferred < partSize) {
                         transferred += partChannel.transferTo(transferred,
                                 partSize - transferred, outputChannel);
                     }
+                    phaseStart = recorder.phase(Phase.TRANSFER, phaseStart, transferred);
+                }
+                recorder.phase(Phase.CLOSE, phaseStart, 0);
+                part.end(transferred);
+            }
+            recorder.complete();
+        }
+    }
+
+    /**
+     * Разбивает файл на части, сжимая каждую в GZIP прямо во время записи; части сжимаются параллельно.
+     * Рядом сохраняется манифест со смещением, длиной и CRC32C несжатых данных каждой части.
+     * @param sourcePath путь к исходному файлу
+     * @param outputDir директория для сохранения частей ({@code name.partN.gz}) и манифеста
+     * @param partSize размер каждой части до сжатия
+     * @param parallelism количество потоков сжатия
+     * @return манифест разбиения
+     */
+    public SplitManifest splitFileCompressed(String sourcePath, String outputDir, long partSize,
+                                             int parallelism) throws IOException {
+        if (partSize <= 0) {
+            throw new IllegalArgumentException("Размер части должен быть положительным: " + partSize);
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Количество потоков должно быть положительным: " + parallelism);
+        }
+
+        Path sourceFile = Paths.get(sourcePath);
+
+        if (!Files.exists(sourceFile)) {
+            throw new NoSuchFileException("Исходный файл не найден: " + sourcePath);
+        }
+
+        Path outputDirectory = Paths.get(outputDir);
+        Files.createDirectories(outputDirectory);
+
+        String fileName = sourceFile.getFileName().toString();
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try (OperationRecorder recorder = new OperationRecorder(listener, Operation.SPLIT, sourceFile);
+             FileChannel sourceChannel = FileChannel.open(sourceFile, StandardOpenOption.READ)) {
+            long fileSize = sourceChannel.size();
+            List<Callable<SplitManifest.Part>> tasks = new ArrayList<>();
+
+            int partNumber = 1;
+            for (long position = 0; position < fileSize; position += partSize) {
+                long offset = position;
+                long length = Math.min(partSize, fileSize - position);
+                int number = partNumber++;
+                String partFileName = partFileName(fileName, number) + COMPRESSED_PART_SUFFIX;
+
+                tasks.add(() -> {
+                    OperationRecorder.Part part = recorder.startPart(number);
+                    int crc = compressRange(sourceChannel, offset, length, outputDirectory.resolve(partFileName));
+                    part.end(length);
+                    return new SplitManifest.Part(partFileName, offset, length, crc);
+                });
+            }
+
+            SplitManifest manifest = new SplitManifest(fileName, fileSize, outputDirectory,
+                    invokeAll(executor, tasks));
+            manifest.write(manifest.defaultPath());
+            recorder.complete();
+            return manifest;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Параллельно объединяет сжатые части: каждая распаковывается и пишется по своему смещению из манифеста,
+     * длина и CRC32C несжатых данных проверяются в том же проходе
+     * @param manifest манифест, созданный {@link #splitFileCompressed}
+     * @param outputPath путь для результирующего файла
+     * @param parallelism количество потоков распаковки
+     */
+    public void mergeCompressedFiles(SplitManifest manifest, String outputPath, int parallelism) throws IOException {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Количество потоков должно быть положительным: " + parallelism);
+        }
+
+        Path outputFile = Paths.get(outputPath);
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try (OperationRecorder recorder = new OperationRecorder(listener, Operation.MERGE, outputFile);
+             FileChannel outputChannel = FileChannel.open(outputFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            List<Callable<Void>> tasks = new ArrayList<>();
+            List<SplitManifest.Part> parts = manifest.getParts();
+            for (int i = 0; i < parts.size(); i++) {
+                SplitManifest.Part part = parts.get(i);
+                int partNumber = i + 1;
+                tasks.add(() -> {
+                    OperationRecorder.Part recordedPart = recorder.startPart(partNumber);
+                    decompressPart(manifest.resolve(part), part, outputChannel);
+                    recordedPart.end(part.getLength());
+                    return null;
+                });
+            }
+
+            invokeAll(executor, tasks);
+            recorder.complete();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Сжимает диапазон исходного канала в GZIP-файл
+     * @return CRC32C несжатых данных
+     */
+    private static int compressRange(FileChannel source, long position, long count, Path target) throws IOException {
+        byte[] data = new byte[(int) Math.min(count, COPY_BUFFER_SIZE)];
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        CRC32C crc = new CRC32C();
+
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(target), 64 * 1024)) {
+            long copied = 0;
+            while (copied < count) {
+                buffer.clear();
+                buffer.limit((int) Math.min(data.length, count - copied));
+                int bytesRead = source.read(buffer, position + copied);
+                if (bytesRead <= 0) {
+                    throw new EOFException("Исходный файл короче ожидаемого: " + target);
+                }
+                crc.update(data, 0, bytesRead);
+                out.write(data, 0, bytesRead);
+                copied += bytesRead;
+            }
+        }
+
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Распаковывает часть в выходной канал по её смещению и сверяет с записью манифеста
+     */
+    private static void decompressPart(Path partPath, SplitManifest.Part part,
+                                       FileChannel outputChannel) throws IOException {
+        if (!Files.exists(partPath)) {
+            throw new NoSuchFileException("Часть файла не найдена: " + partPath);
+        }
+
+        byte[] data = new byte[COPY_BUFFER_SIZE];
+        CRC32C crc = new CRC32C();
+        long written = 0;
+
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(partPath), 64 * 1024)) {
+            int bytesRead;
+            while ((bytesRead = in.readNBytes(data, 0, data.length)) > 0) {
+                if (written + bytesRead > part.getLength()) {
+                    throw new IOException("Распакованная часть длиннее ожидаемого: " + partPath);
+                }
+                crc.update(data, 0, bytesRead);
+                ByteBuffer buffer = ByteBuffer.wrap(data, 0, bytesRead);
+                while (buffer.hasRemaining()) {
+                    outputChannel.write(buffer, part.getOffset() + written + buffer.position());
+                }
+                written += bytesRead;
+            }
+        }
+
+        if (written != part.getLength()) {
+            throw new IOException(String.format("Размер распакованной части %s: %d, ожидалось %d",
+                    partPath, written, part.getLength()));
+        }
+        if ((int) crc.getValue() != part.getCrc32c()) {
+            throw new IOException(String.format("Контрольная сумма части %s не совпадает: %08x, ожидалось %08x",
+                    partPath, (int) crc.getValue(), part.getCrc32c()));
+        }
+    }
+
+    /**
+     * Открывает части как один файл только для чтения, без записи объединённой копии.
+     * Порядок определяется номером части в имени, как в {@link #mergeFiles(List, String)}.
+     */
+    public ConcatenatedChannel openMerged(List<Path> partPaths) throws IOException {
+        List<Path> orderedParts = new ArrayList<>(partPaths);
+        orderedParts.sort(Comparator.comparing(FileProcessor::extractPartNumber));
+        return ConcatenatedChannel.open(orderedParts);
+    }
+
+    /**
+     * Объединяет части по манифесту, проверяя длину и CRC32C каждой части в том же проходе, что и копирование
+     * @param manifest манифест разбиения
+     * @param outputPath путь для результирующего файла
+     * @throws IOException если часть отсутствует, имеет другой размер или повреждена
+     */
+    public void mergeFiles(SplitManifest manifest, String outputPath) throws IOException {
+        Path outputFile = Paths.get(outputPath);
+        ByteBuffer buffer = bufferPool.acquire(COPY_BUFFER_SIZE);
+        CRC32C crc = new CRC32C();
+
+        try (OperationRecorder recorder = new OperationRecorder(listener, Operation.MERGE, outputFile);
+             FileChannel outputChannel = FileChannel.open(outputFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            List<SplitManifest.Part> parts = manifest.getParts();
+            for (int i = 0; i < parts.size(); i++) {
+                SplitManifest.Part part = parts.get(i);
+                OperationRecorder.Part recordedPart = recorder.startPart(i + 1);
+                copyVerified(manifest.resolve(part), part, outputChannel, part.getOffset(), buffer, crc);
+                recordedPart.end(part.getLength());
+            }
+            recorder.complete();
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+
+    /**
+     * Возобновляемое объединение по манифесту. После каждой проверенной и сброшенной на диск части
+     * в журнал {@code <outputPath>.journal} дописывается строка, поэтому после падения повторный вызов
+     * копирует только недостающие части. Если выходного файла нет или он короче уже записанных частей
+     * (удалён или обрезан после падения), журнал не используется и объединение начинается заново.
+     * В конце файл обрезается до размера исходного, журнал удаляется.
+     * @param manifest манифест разбиения
+     * @param outputPath путь для результирующего файла
+     */
+    public void resumableMerge(SplitManifest manifest, String outputPath) throws IOException {
+        Path outputFile = Paths.get(outputPath);
+        Path journalFile = outputFile.resolveSibling(outputFile.getFileName() + ".journal");
+        String journalHeader = String.format("# merge-journal v1\t%s\t%d",
+                manifest.getSourceName(), manifest.getTotalSize());
+
+        Set<Integer> completed = readMergeJournal(journalFile, journalHeader, manifest);
+        long journaledEnd = 0;
+        for (int index : completed) {
+            SplitManifest.Part part = manifest.getParts().get(index);
+            journaledEnd = Math.max(journaledEnd, part.getOffset() + part.getLength());
+        }
+        if (!completed.isEmpty() && (!Files.exists(outputFile) || Files.size(outputFile) < journaledEnd)) {
+            completed.clear();
+        }
+        boolean resuming = !completed.isEmpty();
+
+        if (!resuming) {
+            Files.writeString(journalFile, journalHeader + "\n", StandardCharsets.UTF_8);
+        }
+
+        ByteBuffer buffer = bufferPool.acquire(COPY_BUFFER_SIZE);
+        CRC32C crc = new CRC32C();
+
+        try (OperationRecorder recorder = new OperationRecorder(listener, Operation.MERGE, outputFile);
+             FileChannel outputChannel = resuming
+                ? FileChannel.open(outputFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)
+                : FileChannel.open(outputFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+             FileChannel journalChannel = FileChannel.open(journalFile, StandardOpenOption.APPEND)) {
+
+            List<SplitManifest.Part> parts = manifest.getParts();
+            for (int i = 0; i < parts.size(); i++) {
+                if (completed.contains(i)) {
+                    continue;
+                }
+
+                SplitManifest.Part part = parts.get(i);
+                OperationRecorder.Part recordedPart = recorder.startPart(i + 1);
+                copyVerified(manifest.resolve(part), part, outputChannel, part.getOffset(), buffer, crc);
+                outputChannel.force(false);
+
+                // Часть попадает в журнал только после того, как её данные гарантированно на диске
+                String entry = String.format("done\t%d\t%d\t%d\t%08x\n",
+                        i, part.getOffset(), part.getLength(), part.getCrc32c());
+                ByteBuffer entryBuffer = ByteBuffer.wrap(entry.getBytes(StandardCharsets.UTF_8));
+                while (entryBuffer.hasRemaining()) {
+                    journalChannel.write(entryBuffer);
+                }
+                journalChannel.force(false);
+                recordedPart.end(part.getLength());
+            }
+
+            outputChannel.truncate(manifest.getTotalSize());
+            outputChannel.force(true);
+            recorder.complete();
+        } finally {
+            bufferPool.release(buffer);
+        }
+
+        Files.delete(journalFile);
+    }
+
+    /**
+     * Читает журнал объединения и возвращает индексы готовых частей.
+     * Журнал от другого манифеста и записи, не совпадающие с манифестом, игнорируются;
+     * недописанная последняя строка после падения тоже пропускается.
+     */
+    private static Set<Integer> readMergeJournal(Path journalFile, String expectedHeader,
+                                                 SplitManifest manifest) throws IOException {
+        Set<Integer> completed = new HashSet<>();
+        if (!Files.exists(journalFile)) {
+            return completed;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+            if (!expectedHeader.equals(reader.readLine())) {
+                return completed;
+            }
+
+            List<SplitManifest.Part> parts = manifest.getParts();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t");
+                if (fields.length != 5 || !fields[0].equals("done")) {
+                    continue;
+                }
+                try {
+                    int index = Integer.parseInt(fields[1]);
+                    if (index < 0 || index >= parts.size()) {
+                        continue;
+                    }
+                    SplitManifest.Part part = parts.get(index);
+                    if (part.getOffset() == Long.parseLong(fields[2])
+                            && part.getLength() == Long.parseLong(fields[3])
+                            && part.getCrc32c() == Integer.parseUnsignedInt(fields[4], 16)) {
+                        completed.add(index);
+                    }
+                } catch (NumberFormatException e) {
+                    // недописанная строка
                 }
             }
         }
+        return completed;
+    }
+
+    /**
+     * Копирует часть в выходной канал по смещению и сверяет её с записью манифеста
+     */
+    private static void copyVerified(Path partPath, SplitManifest.Part part, FileChannel outputChannel,
+                                     long outputOffset, ByteBuffer buffer, CRC32C crc) throws IOException {
+        if (!Files.exists(partPath)) {
+            throw new NoSuchFileException("Часть файла не найдена: " + partPath);
+        }
+
+        try (FileChannel partChannel = FileChannel.open(partPath, StandardOpenOption.READ)) {
+            if (partChannel.size() != part.getLength()) {
+                throw new IOException(String.format("Размер части %s: %d, ожидалось %d",
+                        partPath, partChannel.size(), part.getLength()));
+            }
+
+            crc.reset();
+            long copied = 0;
+            while (copied < part.getLength()) {
+                buffer.clear();
+                int bytesRead = partChannel.read(buffer, copied);
+                if (bytesRead <= 0) {
+                    throw new EOFException("Часть файла короче ожидаемого: " + partPath);
+                }
+                buffer.flip();
+                crc.update(buffer);
+                buffer.rewind();
+                while (buffer.hasRemaining()) {
+                    outputChannel.write(buffer, outputOffset + copied + buffer.position());
+                }
+                copied += bytesRead;
+            }
+        }
+
+        if ((int) crc.getValue() != part.getCrc32c()) {
+            throw new IOException(String.format("Контрольная сумма части %s не совпадает: %08x, ожидалось %08x",
+                    partPath, (int) crc.getValue(), part.getCrc32c()));
+        }
+    }
+
+    /**
+     * Параллельно объединяет части: смещение каждой части вычисляется по размерам предыдущих,
+     * выходной файл создаётся сразу нужного размера, и потоки пишут части по своим смещениям
+     * @param partPaths список путей к частям файла
+     * @param outputPath путь для результирующего файла
+     * @param parallelism количество потоков, одновременно записывающих части
+     */
+    public void mergeFilesParallel(List<Path> partPaths, String outputPath, int parallelism) throws IOException {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Количество потоков должно быть положительным: " + parallelism);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            mergeFilesParallel(partPaths, outputPath, executor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Параллельно объединяет части на переданном пуле потоков.
+     * Пул не закрывается, им управляет вызывающий код.
+     */
+    public void mergeFilesParallel(List<Path> partPaths, String outputPath,
+                                   ExecutorService executor) throws IOException {
+        Path outputFile = Paths.get(outputPath);
+
+        List<Path> orderedParts = new ArrayList<>(partPaths);
+        orderedParts.sort(Comparator.comparing(FileProcessor::extractPartNumber));
+
+        long[] offsets = new long[orderedParts.size()];
+        long totalSize = 0;
+        for (int i = 0; i < orderedParts.size(); i++) {
+            Path partPath = orderedParts.get(i);
+            if (!Files.exists(partPath)) {
+                throw new NoSuchFileException("Часть файла не найдена: " + partPath);
+            }
+            offsets[i] = totalSize;
+            totalSize += Files.size(partPath);
+        }
+
+        try (OperationRecorder recorder = new OperationRecorder(listener, Operation.MERGE, outputFile);
+             FileChannel outputChannel = FileChannel.open(outputFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            // transferFrom ничего не пишет за концом файла, поэтому сначала задаём итоговый размер
+            if (totalSize > 0) {
+                outputChannel.write(ByteBuffer.allocate(1), totalSize - 1);
+            }
+
+            List<Callable<Void>> tasks = new ArrayList<>(orderedParts.size());
+            for (int i = 0; i < orderedParts.size(); i++) {
+                Path partPath = orderedParts.get(i);
+                long offset = offsets[i];
+
+                tasks.add(() -> {
+                    OperationRecorder.Part part = recorder.startPart(extractPartNumber(partPath));
+                    part.end(writePartAt(partPath, outputChannel, offset, recorder));
+                    return null;
+                });
+            }
+
+            invokeAll(executor, tasks);
+            recorder.complete();
+        }
+    }
+
+    /**
+     * Записывает часть в выходной канал по заданному смещению через позиционный transferFrom
+     * @return размер части
+     */
+    private static long writePartAt(Path partPath, FileChannel outputChannel, long offset,
+                                    OperationRecorder recorder) throws IOException {
+        long phaseStart = System.nanoTime();
+        long transferred = 0;
+        try (FileChannel partChannel = FileChannel.open(partPath, StandardOpenOption.READ)) {
+            phaseStart = recorder.phase(Phase.OPEN, phaseStart, 0);
+            long partSize = partChannel.size();
+
+            while (transferred < partSize) {
+                long bytes = outputChannel.transferFrom(partChannel, offset + transferred, partSize - transferred);
+                if (bytes <= 0) {
+                    throw new EOFException("Часть файла короче ожидаемого: " + partPath);
+                }
+                transferred += bytes;
+            }
+            phaseStart = recorder.phase(Phase.TRANSFER, phaseStart, transferred);
+        }
+        recorder.phase(Phase.CLOSE, phaseStart, 0);
+        return transferred;
+    }
+
+    /**
+     * Разбивает файл на чанки по содержимому и складывает их в хранилище чанков.
+     * Чанк называется по SHA-256 своего содержимого, уже существующие чанки повторно не пишутся,
+     * поэтому после небольшой правки файла записываются только изменившиеся чанки.
+     * @param sourcePath путь к исходному файлу
+     * @param chunkStoreDir директория хранилища чанков
+     * @param chunker параметры разбиения (min/avg/max размер чанка)
+     * @return пути к чанкам в порядке следования (чанк может встречаться несколько раз)
+     */
+    public List<Path> splitFileContentDefined(String sourcePath, String chunkStoreDir,
+                                              ContentDefinedChunker chunker) throws IOException {
+        Path sourceFile = Paths.get(sourcePath);
+
+        if (!Files.exists(sourceFile)) {
+            throw new NoSuchFileException("Исходный файл не найден: " + sourcePath);
+        }
+
+        Path storeDirectory = Paths.get(chunkStoreDir);
+        Files.createDirectories(storeDirectory);
+
+        List<Path> chunkPaths = new ArrayList<>();
+        MessageDigest digest = newSha256();
+        byte[] window = new byte[Math.max(chunker.getMaxSize() * 4, 1 << 20)];
+        ByteBuffer buffer = ByteBuffer.wrap(window);
+
+        try (OperationRecorder recorder = new OperationRecorder(listener, Operation.SPLIT, sourceFile);
+             FileChannel sourceChannel = FileChannel.open(sourceFile, StandardOpenOption.READ)) {
+            int start = 0;
+            int end = 0;
+            boolean eof = false;
+
+            while (true) {
+                // Граница не должна упираться в конец окна, пока в файле есть данные
+                if (!eof && end - start < chunker.getMaxSize()) {
+                    System.arraycopy(window, start, window, 0, end - start);
+                    end -= start;
+                    start = 0;
+                    buffer.clear().position(end);
+                    while (buffer.hasRemaining()) {
+                        if (sourceChannel.read(buffer) < 0) {
+                            eof = true;
+                            break;
+                        }
+                    }
+                    end = buffer.position();
+                }
+
+                if (start == end) {
+                    break;
+                }
+
+                int length = chunker.nextChunkLength(window, start, end - start);
+                OperationRecorder.Part part = recorder.startPart(chunkPaths.size() + 1);
+                digest.update(window, start, length);
+                String chunkName = HexFormat.of().formatHex(digest.digest());
+
+                Path chunkPath = storeDirectory.resolve(chunkName.substring(0, 2)).resolve(chunkName);
+                if (!Files.exists(chunkPath)) {
+                    writeChunk(chunkPath, window, start, length);
+                }
+                chunkPaths.add(chunkPath);
+                part.end(length);
+                start += length;
+            }
+            recorder.complete();
+        }
+
+        return chunkPaths;
+    }
+
+    /**
+     * Объединяет чанки в заданном порядке, без сортировки по имени
+     * @param chunkPaths пути к чанкам в порядке следования
+     * @param outputPath путь для результирующего файла
+     */
+    public void mergeChunks(List<Path> chunkPaths, String outputPath) throws IOException {
+        Path outputFile = Paths.get(outputPath);
+
+        try (OperationRecorder recorder = new OperationRecorder(listener, Operation.MERGE, outputFile);
+             FileChannel outputChannel = FileChannel.open(outputFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            for (int i = 0; i < chunkPaths.size(); i++) {
+                Path chunkPath = chunkPaths.get(i);
+                if (!Files.exists(chunkPath)) {
+                    throw new NoSuchFileException("Чанк не найден: " + chunkPath);
+                }
+
+                OperationRecorder.Part part = recorder.startPart(i + 1);
+                try (FileChannel chunkChannel = FileChannel.open(chunkPath, StandardOpenOption.READ)) {
+                    part.end(transferFully(chunkChannel, 0, chunkChannel.size(), outputChannel, outputFile));
+                }
+            }
+            recorder.complete();
+        }
+    }
+
+    /**
+     * Пишет чанк во временный файл и атомарно переименовывает,
+     * чтобы в хранилище никогда не оказался недописанный чанк
+     */
+    private static void writeChunk(Path chunkPath, byte[] data, int offset, int length) throws IOException {
+        Files.createDirectories(chunkPath.getParent());
+        Path tempPath = Files.createTempFile(chunkPath.getParent(), chunkPath.getFileName().toString(), ".tmp");
+
+        try (FileChannel chunkChannel = FileChannel.open(tempPath, StandardOpenOption.WRITE)) {
+            ByteBuffer chunk = ByteBuffer.wrap(data, offset, length);
+            while (chunk.hasRemaining()) {
+                chunkChannel.write(chunk);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tempPath);
+            throw e;
+        }
+
+        Files.move(tempPath, chunkPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
     }
 
     /**
      * Извлекает номер части из имени файла
      */
-    private int extractPartNumber(Path partPath) {
+    static int extractPartNumber(Path partPath) {
         String fileName = partPath.getFileName().toString();
         try {
             String numberStr = fileName.replaceAll(".*\\.part(\\d+)$", "$1");
@@ -105,6 +1188,84 @@ public class FileProcessor {
         }
     }
 
+    static String partFileName(String fileName, int partNumber) {
+        return String.format("%s.part%d", fileName, partNumber);
+    }
+
+    /**
+     * Копирует диапазон исходного канала в отдельный файл.
+     * Позиционный transferTo не меняет позицию канала, поэтому канал можно разделять между потоками.
+     */
+    private static void copyRange(FileChannel source, long position, long count, Path target,
+                                  OperationRecorder recorder) throws IOException {
+        long phaseStart = System.nanoTime();
+        try (FileChannel targetChannel = FileChannel.open(target,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            phaseStart = recorder.phase(Phase.OPEN, phaseStart, 0);
+
+            long transferred = transferFully(source, position, count, targetChannel, target);
+            phaseStart = recorder.phase(Phase.TRANSFER, phaseStart, transferred);
+        }
+        recorder.phase(Phase.CLOSE, phaseStart, 0);
+    }
+
+    /**
+     * Копирует ровно count байт источника с позиции position в текущую позицию target через transferTo.
+     * Если источник закончился раньше (например, его укоротили во время копирования), бросает EOFException,
+     * а не оставляет молча укороченную копию.
+     * @return count
+     */
+    static long transferFully(FileChannel source, long position, long count, FileChannel target,
+                              Path targetPath) throws IOException {
+        long transferred = 0;
+        while (transferred < count) {
+            long bytes = source.transferTo(position + transferred, count - transferred, target);
+            if (bytes <= 0) {
+                throw new EOFException("Исходный файл короче ожидаемого: " + targetPath);
+            }
+            transferred += bytes;
+        }
+        return transferred;
+    }
+
+    /**
+     * Выполняет задачи на пуле и возвращает результаты в порядке задач.
+     * При первой ошибке остальные задачи отменяются, а IOException пробрасывается как есть.
+     */
+    private static <T> List<T> invokeAll(ExecutorService executor, List<Callable<T>> tasks) throws IOException {
+        List<Future<T>> futures = new ArrayList<>(tasks.size());
+        for (Callable<T> task : tasks) {
+            futures.add(executor.submit(task));
+        }
+
+        List<T> results = new ArrayList<>(tasks.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Операция прервана");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IOException(cause);
+        } finally {
+            for (Future<T> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
     /**
      * Дополнительный метод: эффективное копирование файла с использованием transferTo
      */
@@ -112,44 +1273,126 @@ public class FileProcessor {
         Path source = Paths.get(sourcePath);
         Path dest = Paths.get(destPath);
 
-        try (FileChannel sourceChannel = FileChannel.open(source, StandardOpenOption.READ);
-             FileChannel destChannel = FileChannel.open(dest,
-                     StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+        try (OperationRecorder recorder = new OperationRecorder(listener, Operation.COPY, source)) {
+            long phaseStart = System.nanoTime();
 
-            long size = sourceChannel.size();
-            long transferred = 0;
+            try (FileChannel sourceChannel = FileChannel.open(source, StandardOpenOption.READ);
+                 FileChannel destChannel = FileChannel.open(dest,
+                         StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                phaseStart = recorder.phase(Phase.OPEN, phaseStart, 0);
 
-            while (transferred < size) {
-                transferred += sourceChannel.transferTo(transferred, size - transferred, destChannel);
+                long transferred = transferFully(sourceChannel, 0, sourceChannel.size(), destChannel, dest);
+                phaseStart = recorder.phase(Phase.TRANSFER, phaseStart, transferred);
+                recorder.addBytes(transferred);
             }
+            recorder.phase(Phase.CLOSE, phaseStart, 0);
+            recorder.complete();
+        }
+    }
+
+    /**
+     * Параллельно копирует дерево директорий. Обход идёт в fork/join-пуле с work stealing,
+     * мелкие файлы (до 64 КБ) копируются одним чтением и записью, крупные — через transferTo.
+     * @param sourceDir исходная директория
+     * @param destDir директория назначения (создаётся при необходимости)
+     * @param parallelism количество потоков копирования
+     * @return статистика: количество файлов и байт, файлов/с и байт/с
+     */
+    public TreeCopyStats copyTree(String sourceDir, String destDir, int parallelism) throws IOException {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Количество потоков должно быть положительным: " + parallelism);
+        }
+        Path source = Paths.get(sourceDir);
+        try (OperationRecorder recorder = new OperationRecorder(listener, Operation.COPY, source)) {
+            TreeCopyStats stats = new TreeCopier(recorder).copy(source, Paths.get(destDir), parallelism);
+            recorder.complete();
+            return stats;
         }
     }
 
     /**
-     * Дополнительный метод: работа с MappedByteBuffer для больших файлов
+     * Обновляет существующую копию на месте: по сигнатуре блоков назначения находит совпадающие блоки
+     * источника и перезаписывает только изменившиеся, затем подрезает файл до размера источника.
+     * Если файла назначения нет, выполняется обычное копирование.
+     * @param sourcePath путь к новой версии файла
+     * @param destPath путь к старой версии, которая будет обновлена
+     * @param blockSize размер блока сравнения в байтах
+     * @return количество записанных в назначение байт
      */
-    public void processWithMappedBuffer(String filePath, int bufferSize) throws IOException {
-        Path path = Paths.get(filePath);
+    public long deltaCopy(String sourcePath, String destPath, int blockSize) throws IOException {
+        Path dest = Paths.get(destPath);
 
-        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
-            long fileSize = Files.size(path);
-            long position = 0;
+        if (!Files.exists(dest)) {
+            efficientCopy(sourcePath, destPath);
+            return Files.size(dest);
+        }
+
+        return deltaCopy(sourcePath, destPath, BlockSignature.compute(dest, blockSize));
+    }
+
+    /**
+     * Обновляет копию по заранее вычисленной сигнатуре назначения, не перечитывая сам файл назначения.
+     * Сигнатура должна соответствовать текущему содержимому назначения.
+     */
+    public long deltaCopy(String sourcePath, String destPath, BlockSignature destSignature) throws IOException {
+        Path source = Paths.get(sourcePath);
+        Path dest = Paths.get(destPath);
+        MessageDigest md5 = BlockSignature.newMd5();
+        long written = 0;
+
+        try (OperationRecorder recorder = new OperationRecorder(listener, Operation.COPY, source);
+             FileChannel sourceChannel = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel destChannel = FileChannel.open(dest, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
 
-            while (position < fileSize) {
-                long size = Math.min(bufferSize, fileSize - position);
+            long sourceSize = sourceChannel.size();
+            int blockSize = destSignature.getBlockSize();
+            long blockCount = (sourceSize + blockSize - 1) / blockSize;
+            BlockSignature.BlockReader reader = new BlockSignature.BlockReader(sourceChannel, blockSize);
 
-                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+            for (long i = 0; i < blockCount; i++) {
+                int length = reader.next(i);
+                boolean unchanged = i < destSignature.getBlockCount()
+                        && destSignature.matches((int) i, reader.array(), reader.offset(), length, md5);
 
-                processBufferData(buffer);
+                if (!unchanged) {
+                    ByteBuffer block = ByteBuffer.wrap(reader.array(), reader.offset(), length);
+                    long position = i * blockSize;
+                    while (block.hasRemaining()) {
+                        destChannel.write(block, position + block.position() - reader.offset());
+                    }
+                    written += length;
+                }
+            }
 
-                position += size;
+            if (destChannel.size() > sourceSize) {
+                destChannel.truncate(sourceSize);
             }
+            // Байты операции — реально записанные, а не размер источника
+            recorder.addBytes(written);
+            recorder.complete();
         }
+
+        return written;
     }
 
-    private void processBufferData(ByteBuffer buffer) {
-        while (buffer.hasRemaining()) {
-            byte b = buffer.get();
+    /**
+     * Дополнительный метод: работа с MappedByteBuffer для больших файлов.
+     * Файл читается отображёнными сегментами размера bufferSize параллельно, см. {@link MappedFileScanner}.
+     * @return количество байт перевода строки в файле
+     */
+    public long processWithMappedBuffer(String filePath, int bufferSize) throws IOException {
+        Path file = Paths.get(filePath);
+        MappedFileScanner scanner = new MappedFileScanner(bufferSize, ForkJoinPool.commonPool());
+
+        try (OperationRecorder recorder = new OperationRecorder(listener, Operation.MAPPED_SCAN, file)) {
+            long phaseStart = System.nanoTime();
+            long newlines = scanner.scan(file, MappedFileScanner.countingVisitor((byte) '\n'));
+            long size = Files.size(file);
+            // Отображение, подкачка страниц и подсчёт идут вперемешку, поэтому всё сканирование считается чтением
+            recorder.phase(Phase.READ, phaseStart, size);
+            recorder.addBytes(size);
+            recorder.complete();
+            return newlines;
         }
     }
 }
\ No newline at end of file
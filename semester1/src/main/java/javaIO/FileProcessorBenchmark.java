@@ -0,0 +1,263 @@
+package javaIO;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * JMH-бенчмарки стратегий javaIO: разбиение, объединение и копирование файлов разного размера.
+ * Исходный файл каждого размера генерируется один раз и переиспользуется всеми наборами параметров
+ * и последующими запусками; результаты пишутся во временную директорию испытания.
+ * Счётчик bytes даёт пропускную способность в байтах/с, GCProfiler — скорость выделения памяти
+ * (gc.alloc.rate.norm — байт на операцию), так что значения по умолчанию выбираются по данным.
+ * <p>
+ * Запуск: {@code java -cp <classpath> javaIO.FileProcessorBenchmark [опции JMH]},
+ * например {@code -p fileSize=4096,1048576 -p partSize=65536} для быстрого прогона.
+ * Гигабайтные файлы включаются только явно: {@code -p fileSize=1073741824,4294967296}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class FileProcessorBenchmark {
+
+    private static final int GENERATE_CHUNK_SIZE = 1 << 20;
+    private static final Path SOURCE_CACHE = Path.of(System.getProperty("java.io.tmpdir"), "javaIO-bench-sources");
+
+    /**
+     * Сгенерированный исходный файл и директория для результатов
+     */
+    @State(Scope.Benchmark)
+    public static class SourceFile {
+        // 4 КБ, 1 МБ, 64 МБ; 1 ГБ и 4 ГБ — через -p fileSize
+        @Param({"4096", "1048576", "67108864"})
+        public long fileSize;
+
+        Path directory;
+        Path source;
+        Path outputDir;
+        Path target;
+
+        @Setup(Level.Trial)
+        public void generate() throws IOException {
+            directory = Files.createTempDirectory("javaIO-bench");
+            outputDir = directory.resolve("parts");
+            target = directory.resolve("target.dat");
+            Files.createDirectories(outputDir);
+            source = cachedSource(fileSize);
+        }
+
+        @TearDown(Level.Trial)
+        public void delete() throws IOException {
+            try (Stream<Path> paths = Files.walk(directory)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                    try {
+                        Files.delete(path);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Возвращает исходный файл заданного размера, генерируя его только при первом обращении.
+     * Содержимое детерминировано (фиксированное зерно), поэтому файл можно переиспользовать между запусками;
+     * недописанный файл остаётся под временным именем и генерируется заново.
+     */
+    static Path cachedSource(long fileSize) throws IOException {
+        Path source = SOURCE_CACHE.resolve("source-" + fileSize + ".dat");
+        if (Files.exists(source) && Files.size(source) == fileSize) {
+            return source;
+        }
+        Files.createDirectories(SOURCE_CACHE);
+        Path tempPath = Files.createTempFile(SOURCE_CACHE, "source-" + fileSize, ".tmp");
+
+        Random random = new Random(42);
+        byte[] chunk = new byte[GENERATE_CHUNK_SIZE];
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.WRITE)) {
+            long written = 0;
+            while (written < fileSize) {
+                random.nextBytes(chunk);
+                ByteBuffer buffer = ByteBuffer.wrap(chunk, 0, (int) Math.min(chunk.length, fileSize - written));
+                while (buffer.hasRemaining()) {
+                    written += channel.write(buffer);
+                }
+            }
+        }
+        Files.move(tempPath, source, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return source;
+    }
+
+    /**
+     * Исходный файл, заранее разбитый на части, для бенчмарков объединения
+     */
+    @State(Scope.Benchmark)
+    public static class SplitSource {
+        @Param({"65536", "4194304", "67108864"})
+        public int partSize;
+
+        List<Path> parts;
+
+        @Setup(Level.Trial)
+        public void split(SourceFile file) throws IOException {
+            parts = new FileProcessor().splitFileParallel(file.source.toString(), file.outputDir.toString(),
+                    partSize, Runtime.getRuntime().availableProcessors());
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class CopyBuffer {
+        @Param({"8192", "65536", "1048576"})
+        public int bufferSize;
+    }
+
+    /**
+     * Дополнительный счётчик: JMH выводит его как байты в секунду рядом с операциями в секунду
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Throughput {
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+
+    private final FileProcessor processor = new FileProcessor();
+
+    @Benchmark
+    public List<Path> splitBuffered(SourceFile file, SplitSource split, Throughput throughput) throws IOException {
+        List<Path> parts = processor.splitFile(file.source.toString(), file.outputDir.toString(), split.partSize);
+        throughput.bytes += file.fileSize;
+        return parts;
+    }
+
+    @Benchmark
+    public List<Path> splitTransferParallel(SourceFile file, SplitSource split, Throughput throughput) throws IOException {
+        List<Path> parts = processor.splitFileParallel(file.source.toString(), file.outputDir.toString(),
+                split.partSize, Runtime.getRuntime().availableProcessors());
+        throughput.bytes += file.fileSize;
+        return parts;
+    }
+
+    @Benchmark
+    public void mergeTransfer(SourceFile file, SplitSource split, Throughput throughput) throws IOException {
+        processor.mergeFiles(new ArrayList<>(split.parts), file.target.toString());
+        throughput.bytes += file.fileSize;
+    }
+
+    @Benchmark
+    public void mergeTransferParallel(SourceFile file, SplitSource split, Throughput throughput) throws IOException {
+        processor.mergeFilesParallel(split.parts, file.target.toString(), Runtime.getRuntime().availableProcessors());
+        throughput.bytes += file.fileSize;
+    }
+
+    @Benchmark
+    public void copyTransferTo(SourceFile file, Throughput throughput) throws IOException {
+        processor.efficientCopy(file.source.toString(), file.target.toString());
+        throughput.bytes += file.fileSize;
+    }
+
+    @Benchmark
+    public void copyHeapBuffer(SourceFile file, CopyBuffer buffer, Throughput throughput) throws IOException {
+        throughput.bytes += copyWithBuffer(file.source, file.target, ByteBuffer.allocate(buffer.bufferSize));
+    }
+
+    @Benchmark
+    public void copyDirectBuffer(SourceFile file, CopyBuffer buffer, Throughput throughput) throws IOException {
+        ByteBuffer direct = DirectBufferPool.shared().acquire(buffer.bufferSize);
+        try {
+            throughput.bytes += copyWithBuffer(file.source, file.target, direct);
+        } finally {
+            DirectBufferPool.shared().release(direct);
+        }
+    }
+
+    @Benchmark
+    public void copyMapped(SourceFile file, Throughput throughput) throws IOException {
+        long window = MappedFileScanner.DEFAULT_SEGMENT_SIZE;
+        try (FileChannel source = FileChannel.open(file.source, StandardOpenOption.READ);
+             FileChannel target = FileChannel.open(file.target,
+                     StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            long size = source.size();
+            long position = 0;
+            while (position < size) {
+                long length = Math.min(window, size - position);
+                MappedByteBuffer mapped = source.map(FileChannel.MapMode.READ_ONLY, position, length);
+                while (mapped.hasRemaining()) {
+                    position += target.write(mapped);
+                }
+            }
+            throughput.bytes += size;
+        }
+    }
+
+    private static long copyWithBuffer(Path sourcePath, Path targetPath, ByteBuffer buffer) throws IOException {
+        try (FileChannel source = FileChannel.open(sourcePath, StandardOpenOption.READ);
+             FileChannel target = FileChannel.open(targetPath,
+                     StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            long copied = 0;
+            while (source.read(buffer.clear()) >= 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    copied += target.write(buffer);
+                }
+            }
+            return copied;
+        }
+    }
+
+    /**
+     * Запускает все бенчмарки класса с GCProfiler; аргументы командной строки — обычные опции JMH
+     */
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(FileProcessorBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,38 @@
+package javaIO;
+
+/**
+ * Слушатель операций {@link FileProcessor}: получает время фаз, частей и операций целиком.
+ * Методы вызываются из рабочих потоков параллельных операций, поэтому реализации должны быть потокобезопасны.
+ */
+public interface FileProcessorListener {
+
+    enum Operation { SPLIT, MERGE, COPY, MAPPED_SCAN }
+
+    /**
+     * Фазы операции. TRANSFER — копирование через transferTo/transferFrom,
+     * где чтение и запись выполняет ядро и разделить их нельзя.
+     */
+    enum Phase { OPEN, READ, WRITE, TRANSFER, CLOSE }
+
+    FileProcessorListener NONE = new FileProcessorListener() { };
+
+    default void operationStarted(Operation operation, String path) { }
+
+    /**
+     * @param nanos длительность фазы
+     * @param bytes сколько байт прочитано или записано за фазу (0 для OPEN/CLOSE)
+     */
+    default void phaseCompleted(Operation operation, Phase phase, long nanos, long bytes) { }
+
+    /**
+     * @param partNumber номер части, начиная с 1
+     * @param nanos полное время обработки части, включая открытие и закрытие
+     */
+    default void partCompleted(Operation operation, int partNumber, long bytes, long nanos) { }
+
+    /**
+     * @param bytes сколько байт обработано за операцию
+     * @param failed завершилась ли операция исключением
+     */
+    default void operationCompleted(Operation operation, long bytes, long nanos, boolean failed) { }
+}
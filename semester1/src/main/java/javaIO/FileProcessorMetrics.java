@@ -0,0 +1,159 @@
+package javaIO;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Слушатель, который копит метрики по каждому виду операций: пропускную способность,
+ * суммарное время фаз (открытие, чтение, запись, transfer, закрытие) и гистограмму задержек частей.
+ * Гистограмма логарифмическая: корзина k содержит задержки из [2^k, 2^(k+1)) наносекунд,
+ * поэтому процентили вычисляются с точностью до двух раз, зато запись стоит одного инкремента.
+ */
+public class FileProcessorMetrics implements FileProcessorListener {
+
+    /**
+     * Метрики одного вида операций
+     */
+    public static class OperationStats {
+        private static final int BUCKETS = 64;
+
+        private final LongAdder operations = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder parts = new LongAdder();
+        private final LongAdder[] phaseNanos = new LongAdder[Phase.values().length];
+        private final LongAdder[] latencyBuckets = new LongAdder[BUCKETS];
+
+        private OperationStats() {
+            for (int i = 0; i < phaseNanos.length; i++) {
+                phaseNanos[i] = new LongAdder();
+            }
+            for (int i = 0; i < BUCKETS; i++) {
+                latencyBuckets[i] = new LongAdder();
+            }
+        }
+
+        public long getOperationCount() { return operations.sum(); }
+        public long getFailureCount() { return failures.sum(); }
+        public long getByteCount() { return bytes.sum(); }
+        public long getElapsedNanos() { return nanos.sum(); }
+        public long getPartCount() { return parts.sum(); }
+
+        public long getPhaseNanos(Phase phase) {
+            return phaseNanos[phase.ordinal()].sum();
+        }
+
+        /**
+         * Средняя скорость операций: все байты, делённые на суммарное время операций
+         */
+        public double getBytesPerSecond() {
+            long elapsed = getElapsedNanos();
+            return elapsed == 0 ? 0 : getByteCount() * 1e9 / elapsed;
+        }
+
+        /**
+         * Оценка процентиля задержки части сверху: верхняя граница корзины, в которую он попал
+         * @param percentile значение от 0 до 100
+         * @return задержка в наносекундах или 0, если частей ещё не было
+         */
+        public long getPartLatencyPercentile(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("Процентиль должен быть от 0 до 100: " + percentile);
+            }
+
+            long[] counts = getPartLatencyHistogram();
+            long total = 0;
+            for (long count : counts) {
+                total += count;
+            }
+            if (total == 0) {
+                return 0;
+            }
+
+            long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return i == BUCKETS - 1 ? Long.MAX_VALUE : (1L << (i + 1)) - 1;
+                }
+            }
+            return Long.MAX_VALUE;
+        }
+
+        /**
+         * Снимок гистограммы: элемент k — число частей с задержкой из [2^k, 2^(k+1)) нс
+         */
+        public long[] getPartLatencyHistogram() {
+            long[] counts = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = latencyBuckets[i].sum();
+            }
+            return counts;
+        }
+
+        private void recordPart(long partNanos) {
+            parts.increment();
+            latencyBuckets[63 - Long.numberOfLeadingZeros(Math.max(1, partNanos))].increment();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("ops=%d, failed=%d, bytes=%d, %.1f MB/s, parts=%d, p50=%d us, p99=%d us, "
+                            + "open=%d ms, read=%d ms, write=%d ms, transfer=%d ms, close=%d ms",
+                    getOperationCount(), getFailureCount(), getByteCount(), getBytesPerSecond() / (1 << 20),
+                    getPartCount(), getPartLatencyPercentile(50) / 1000, getPartLatencyPercentile(99) / 1000,
+                    getPhaseNanos(Phase.OPEN) / 1_000_000, getPhaseNanos(Phase.READ) / 1_000_000,
+                    getPhaseNanos(Phase.WRITE) / 1_000_000, getPhaseNanos(Phase.TRANSFER) / 1_000_000,
+                    getPhaseNanos(Phase.CLOSE) / 1_000_000);
+        }
+    }
+
+    private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+
+    public FileProcessorMetrics() {
+        // Карта заполняется один раз и дальше только читается, поэтому потокобезопасна без блокировок
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new OperationStats());
+        }
+    }
+
+    public OperationStats get(Operation operation) {
+        return stats.get(operation);
+    }
+
+    @Override
+    public void phaseCompleted(Operation operation, Phase phase, long nanos, long bytes) {
+        stats.get(operation).phaseNanos[phase.ordinal()].add(nanos);
+    }
+
+    @Override
+    public void partCompleted(Operation operation, int partNumber, long bytes, long nanos) {
+        stats.get(operation).recordPart(nanos);
+    }
+
+    @Override
+    public void operationCompleted(Operation operation, long bytes, long nanos, boolean failed) {
+        OperationStats operationStats = stats.get(operation);
+        operationStats.operations.increment();
+        operationStats.bytes.add(bytes);
+        operationStats.nanos.add(nanos);
+        if (failed) {
+            operationStats.failures.increment();
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder("FileProcessorMetrics:");
+        for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+            if (entry.getValue().getOperationCount() > 0) {
+                report.append(System.lineSeparator()).append("  ")
+                        .append(entry.getKey()).append(": ").append(entry.getValue());
+            }
+        }
+        return report.toString();
+    }
+}
@@ -4,11 +4,22 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Random;
+import java.util.stream.Stream;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 
 class FileProcessorTest {
 
@@ -80,4 +91,424 @@ class FileProcessorTest {
                 outputDir.resolve("large").toString(), 1024);
         assertTrue(largeParts.size() >= 10);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testSplitFileParallel() throws IOException {
+        FileProcessor processor = new FileProcessor();
+
+        Path testFile = Files.createTempFile(tempDir, "parallel", ".dat");
+        byte[] testData = new byte[10_000];
+        new Random().nextBytes(testData);
+        Files.write(testFile, testData);
+
+        Path outputDir = Files.createTempDirectory(tempDir, "parallel_parts");
+        List<Path> parts = processor.splitFileParallel(testFile.toString(), outputDir.toString(), 3000, 4);
+
+        assertEquals(4, parts.size());
+        assertEquals(3000, Files.size(parts.get(0)));
+        assertEquals(1000, Files.size(parts.get(3)));
+
+        Path mergedFile = Files.createTempFile(tempDir, "merged_parallel", ".dat");
+        processor.mergeFiles(parts, mergedFile.toString());
+
+        assertArrayEquals(testData, Files.readAllBytes(mergedFile));
+    }
+
+    @Test
+    void testMergeFilesParallel() throws IOException {
+        FileProcessor processor = new FileProcessor();
+
+        Path testFile = Files.createTempFile(tempDir, "merge_parallel", ".dat");
+        byte[] testData = new byte[25_000];
+        new Random().nextBytes(testData);
+        Files.write(testFile, testData);
+
+        Path outputDir = Files.createTempDirectory(tempDir, "merge_parts");
+        List<Path> parts = processor.splitFile(testFile.toString(), outputDir.toString(), 1000);
+        Collections.shuffle(parts);
+
+        Path mergedFile = Files.createTempFile(tempDir, "merged", ".dat");
+        Files.write(mergedFile, new byte[40_000]);
+        processor.mergeFilesParallel(List.copyOf(parts), mergedFile.toString(), 4);
+
+        assertArrayEquals(testData, Files.readAllBytes(mergedFile));
+    }
+
+    @Test
+    void testContentDefinedSplitWritesOnlyChangedChunks() throws IOException {
+        FileProcessor processor = new FileProcessor();
+        ContentDefinedChunker chunker = new ContentDefinedChunker(1024, 4096, 16384);
+
+        byte[] original = new byte[200_000];
+        new Random(42).nextBytes(original);
+        Path originalFile = Files.createTempFile(tempDir, "v1", ".dat");
+        Files.write(originalFile, original);
+
+        byte[] modified = new byte[original.length + 1];
+        modified[100] = 7;
+        System.arraycopy(original, 0, modified, 0, 100);
+        System.arraycopy(original, 100, modified, 101, original.length - 100);
+        Path modifiedFile = Files.createTempFile(tempDir, "v2", ".dat");
+        Files.write(modifiedFile, modified);
+
+        Path store = tempDir.resolve("chunks");
+        List<Path> firstChunks = processor.splitFileContentDefined(originalFile.toString(), store.toString(), chunker);
+        long storedAfterFirst = countFiles(store);
+        List<Path> secondChunks = processor.splitFileContentDefined(modifiedFile.toString(), store.toString(), chunker);
+        long newChunks = countFiles(store) - storedAfterFirst;
+
+        assertTrue(firstChunks.size() > 10);
+        assertTrue(newChunks <= 2, "Записано новых чанков: " + newChunks);
+
+        Path mergedFile = Files.createTempFile(tempDir, "merged_v2", ".dat");
+        processor.mergeChunks(secondChunks, mergedFile.toString());
+        assertArrayEquals(modified, Files.readAllBytes(mergedFile));
+    }
+
+    private static long countFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    @Test
+    void testSplitWithManifestAndVerifiedMerge() throws IOException {
+        FileProcessor processor = new FileProcessor();
+
+        Path testFile = Files.createTempFile(tempDir, "manifest", ".dat");
+        byte[] testData = new byte[5000];
+        new Random().nextBytes(testData);
+        Files.write(testFile, testData);
+
+        Path outputDir = Files.createTempDirectory(tempDir, "manifest_parts");
+        SplitManifest manifest = processor.splitFileWithManifest(testFile.toString(), outputDir.toString(), 2000);
+
+        assertEquals(3, manifest.getParts().size());
+        assertEquals(4000, manifest.getParts().get(2).getOffset());
+        assertEquals(1000, manifest.getParts().get(2).getLength());
+
+        SplitManifest reread = SplitManifest.read(manifest.defaultPath());
+        Path mergedFile = Files.createTempFile(tempDir, "merged_manifest", ".dat");
+        processor.mergeFiles(reread, mergedFile.toString());
+        assertArrayEquals(testData, Files.readAllBytes(mergedFile));
+
+        Path secondPart = reread.resolve(reread.getParts().get(1));
+        byte[] corrupted = Files.readAllBytes(secondPart);
+        corrupted[10] ^= 1;
+        Files.write(secondPart, corrupted);
+
+        assertThrows(IOException.class, () -> processor.mergeFiles(reread, mergedFile.toString()));
+    }
+
+    @Test
+    void testResumableMergeContinuesAfterFailure() throws IOException {
+        FileProcessor processor = new FileProcessor();
+
+        Path testFile = Files.createTempFile(tempDir, "resume", ".dat");
+        byte[] testData = new byte[5000];
+        new Random().nextBytes(testData);
+        Files.write(testFile, testData);
+
+        Path outputDir = Files.createTempDirectory(tempDir, "resume_parts");
+        SplitManifest manifest = processor.splitFileWithManifest(testFile.toString(), outputDir.toString(), 1000);
+
+        Path thirdPart = manifest.resolve(manifest.getParts().get(2));
+        byte[] thirdPartData = Files.readAllBytes(thirdPart);
+        Files.write(thirdPart, new byte[1000]);
+
+        Path mergedFile = tempDir.resolve("resumed.dat");
+        Path journal = tempDir.resolve("resumed.dat.journal");
+        assertThrows(IOException.class, () -> processor.resumableMerge(manifest, mergedFile.toString()));
+        assertEquals(3, Files.readAllLines(journal).size());
+
+        Files.write(thirdPart, thirdPartData);
+        Files.write(mergedFile, new byte[3000], StandardOpenOption.APPEND);
+        processor.resumableMerge(manifest, mergedFile.toString());
+
+        assertArrayEquals(testData, Files.readAllBytes(mergedFile));
+        assertFalse(Files.exists(journal));
+    }
+
+    @Test
+    void testResumableMergeRestartsWhenOutputIsLost() throws IOException {
+        FileProcessor processor = new FileProcessor();
+
+        Path testFile = Files.createTempFile(tempDir, "lost", ".dat");
+        byte[] testData = new byte[5000];
+        new Random().nextBytes(testData);
+        Files.write(testFile, testData);
+
+        Path outputDir = Files.createTempDirectory(tempDir, "lost_parts");
+        SplitManifest manifest = processor.splitFileWithManifest(testFile.toString(), outputDir.toString(), 1000);
+        Path thirdPart = manifest.resolve(manifest.getParts().get(2));
+        byte[] thirdPartData = Files.readAllBytes(thirdPart);
+        Path mergedFile = tempDir.resolve("lost.dat");
+
+        // Выходной файл удалён после падения: журнал о двух частях ему больше не соответствует
+        Files.write(thirdPart, new byte[1000]);
+        assertThrows(IOException.class, () -> processor.resumableMerge(manifest, mergedFile.toString()));
+        Files.delete(mergedFile);
+        Files.write(thirdPart, thirdPartData);
+        processor.resumableMerge(manifest, mergedFile.toString());
+        assertArrayEquals(testData, Files.readAllBytes(mergedFile));
+
+        // Выходной файл обрезан короче записанных частей
+        Files.write(thirdPart, new byte[1000]);
+        assertThrows(IOException.class, () -> processor.resumableMerge(manifest, mergedFile.toString()));
+        try (FileChannel channel = FileChannel.open(mergedFile, StandardOpenOption.WRITE)) {
+            channel.truncate(1500);
+        }
+        Files.write(thirdPart, thirdPartData);
+        processor.resumableMerge(manifest, mergedFile.toString());
+        assertArrayEquals(testData, Files.readAllBytes(mergedFile));
+    }
+
+    @Test
+    void testProcessWithMappedBuffer() throws IOException {
+        FileProcessor processor = new FileProcessor();
+
+        Path textFile = Files.createTempFile(tempDir, "lines", ".txt");
+        Files.write(textFile, List.of("first", "second", "third"));
+
+        assertEquals(3, processor.processWithMappedBuffer(textFile.toString(), 4));
+    }
+
+    @Test
+    void testDeltaCopyWritesOnlyChangedBlocks() throws IOException {
+        FileProcessor processor = new FileProcessor();
+
+        byte[] oldData = new byte[64 * 1024];
+        new Random().nextBytes(oldData);
+        Path destFile = Files.createTempFile(tempDir, "delta_dest", ".dat");
+        Files.write(destFile, oldData);
+
+        byte[] newData = Arrays.copyOf(oldData, 60 * 1024);
+        newData[5000] ^= 1;
+        newData[40_000] ^= 1;
+        Path sourceFile = Files.createTempFile(tempDir, "delta_source", ".dat");
+        Files.write(sourceFile, newData);
+
+        long written = processor.deltaCopy(sourceFile.toString(), destFile.toString(), 4096);
+
+        assertEquals(2 * 4096, written);
+        assertArrayEquals(newData, Files.readAllBytes(destFile));
+        assertEquals(0, processor.deltaCopy(sourceFile.toString(), destFile.toString(), 4096));
+    }
+
+    @Test
+    void testSplitFileOnLinesKeepsRecordsWhole() throws IOException {
+        FileProcessor processor = new FileProcessor();
+
+        StringBuilder csv = new StringBuilder();
+        Random random = new Random();
+        for (int i = 0; i < 2000; i++) {
+            csv.append(i).append(',').append("x".repeat(random.nextInt(40))).append('\n');
+        }
+        Path csvFile = Files.createTempFile(tempDir, "records", ".csv");
+        Files.writeString(csvFile, csv);
+
+        Path outputDir = Files.createTempDirectory(tempDir, "record_parts");
+        List<Path> parts = processor.splitFileOnLines(csvFile.toString(), outputDir.toString(), 4096, 3);
+
+        assertTrue(parts.size() > 1);
+        for (Path part : parts) {
+            String content = Files.readString(part);
+            assertTrue(content.endsWith("\n"));
+            assertTrue(content.length() >= 4096 || part.equals(parts.get(parts.size() - 1)));
+        }
+
+        Path mergedFile = Files.createTempFile(tempDir, "merged_records", ".csv");
+        processor.mergeFiles(parts, mergedFile.toString());
+        assertEquals(csv.toString(), Files.readString(mergedFile));
+    }
+
+    @Test
+    void testSplitFileOnMultiByteDelimiter() throws IOException {
+        FileProcessor processor = new FileProcessor();
+
+        Path file = Files.createTempFile(tempDir, "crlf", ".txt");
+        Files.writeString(file, "aaaa\r\nbbbb\r\ncccc\r\ndd");
+
+        Path outputDir = Files.createTempDirectory(tempDir, "crlf_parts");
+        List<Path> parts = processor.splitFileOnRecords(file.toString(), outputDir.toString(), 5,
+                new byte[] {'\r', '\n'}, 2);
+
+        assertEquals(4, parts.size());
+        assertEquals("aaaa\r\n", Files.readString(parts.get(0)));
+        assertEquals("dd", Files.readString(parts.get(3)));
+    }
+
+    @Test
+    void testSplitStream() throws IOException {
+        FileProcessor processor = new FileProcessor();
+
+        byte[] testData = new byte[3 * 1024 * 1024 + 123];
+        new Random().nextBytes(testData);
+
+        Path outputDir = Files.createTempDirectory(tempDir, "stream_parts");
+        List<Path> parts = processor.splitStream(new ByteArrayInputStream(testData), outputDir.toString(),
+                "stream.bin", 1_000_000);
+
+        assertEquals(4, parts.size());
+        assertEquals(1_000_000, Files.size(parts.get(0)));
+        assertEquals(testData.length - 3_000_000, Files.size(parts.get(3)));
+
+        Path mergedFile = Files.createTempFile(tempDir, "merged_stream", ".dat");
+        processor.mergeFiles(parts, mergedFile.toString());
+        assertArrayEquals(testData, Files.readAllBytes(mergedFile));
+
+        assertTrue(processor.splitStream(new ByteArrayInputStream(new byte[0]), outputDir.toString(),
+                "empty.bin", 1000).isEmpty());
+    }
+
+    @Test
+    void testCompressedSplitAndMerge() throws IOException {
+        FileProcessor processor = new FileProcessor();
+
+        String text = "compressible line of text\n".repeat(20_000);
+        Path textFile = Files.createTempFile(tempDir, "compressed", ".txt");
+        Files.writeString(textFile, text);
+
+        Path outputDir = Files.createTempDirectory(tempDir, "compressed_parts");
+        SplitManifest manifest = processor.splitFileCompressed(textFile.toString(), outputDir.toString(),
+                100_000, 3);
+
+        assertEquals(6, manifest.getParts().size());
+        long compressedSize = 0;
+        for (SplitManifest.Part part : manifest.getParts()) {
+            compressedSize += Files.size(manifest.resolve(part));
+        }
+        assertTrue(compressedSize < Files.size(textFile) / 10);
+
+        Path mergedFile = Files.createTempFile(tempDir, "merged_compressed", ".txt");
+        processor.mergeCompressedFiles(SplitManifest.read(manifest.defaultPath()), mergedFile.toString(), 3);
+        assertEquals(text, Files.readString(mergedFile));
+    }
+
+    @Test
+    void testSplitReusesPooledBuffers() throws IOException {
+        DirectBufferPool pool = new DirectBufferPool(1 << 20, 1 << 22);
+        FileProcessor processor = new FileProcessor(pool);
+
+        Path testFile = Files.createTempFile(tempDir, "pooled", ".dat");
+        Files.write(testFile, new byte[3000]);
+
+        for (int i = 0; i < 5; i++) {
+            processor.splitFile(testFile.toString(), tempDir.resolve("pooled_parts" + i).toString(), 1000);
+        }
+
+        assertEquals(1, pool.getMisses());
+        assertEquals(4, pool.getHits());
+    }
+
+    @Test
+    void testCopyTree() throws IOException {
+        FileProcessor processor = new FileProcessor();
+        Random random = new Random();
+
+        Path sourceDir = tempDir.resolve("tree");
+        long expectedBytes = 0;
+        for (int d = 0; d < 5; d++) {
+            Path dir = Files.createDirectories(sourceDir.resolve("dir" + d).resolve("nested"));
+            for (int f = 0; f < 20; f++) {
+                byte[] data = new byte[f == 0 ? 200_000 : random.nextInt(2000)];
+                random.nextBytes(data);
+                Files.write(dir.resolve("file" + f + ".bin"), data);
+                expectedBytes += data.length;
+            }
+        }
+        Files.createDirectories(sourceDir.resolve("empty"));
+
+        Path destDir = tempDir.resolve("tree_copy");
+        TreeCopyStats stats = processor.copyTree(sourceDir.toString(), destDir.toString(), 4);
+
+        assertEquals(100, stats.getFileCount());
+        assertEquals(12, stats.getDirectoryCount());
+        assertEquals(expectedBytes, stats.getByteCount());
+        assertTrue(stats.getFilesPerSecond() > 0);
+        assertTrue(Files.isDirectory(destDir.resolve("empty")));
+
+        Path relative = Path.of("dir3", "nested", "file0.bin");
+        assertArrayEquals(Files.readAllBytes(sourceDir.resolve(relative)), Files.readAllBytes(destDir.resolve(relative)));
+    }
+
+    @Test
+    void testCopyFailsWhenSourceShrinks() throws IOException {
+        Path source = tempDir.resolve("shrinking.dat");
+        Files.write(source, new byte[200_000]);
+        Path target = tempDir.resolve("shrinking_copy.dat");
+
+        try (FileChannel sourceChannel = FileChannel.open(source, StandardOpenOption.READ, StandardOpenOption.WRITE);
+             FileChannel targetChannel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            long size = sourceChannel.size();
+            // Источник укорачивается после того, как копирование узнало его размер
+            sourceChannel.truncate(150_000);
+            assertThrows(EOFException.class,
+                    () -> FileProcessor.transferFully(sourceChannel, 0, size, targetChannel, target));
+        }
+    }
+
+    @Test
+    void testMetricsListener() throws IOException {
+        FileProcessorMetrics metrics = new FileProcessorMetrics();
+        FileProcessor processor = new FileProcessor(metrics);
+
+        Path testFile = tempDir.resolve("metrics.dat");
+        byte[] testData = new byte[10_000];
+        new Random().nextBytes(testData);
+        Files.write(testFile, testData);
+
+        List<Path> parts = processor.splitFileParallel(testFile.toString(), tempDir.resolve("parts").toString(), 1000, 3);
+        processor.mergeFiles(parts, tempDir.resolve("merged.dat").toString());
+        processor.efficientCopy(testFile.toString(), tempDir.resolve("copy.dat").toString());
+        // На месте первой части лежит каталог: разбиение падает уже после начала замеров
+        Path blockedDir = tempDir.resolve("blocked");
+        Files.createDirectories(blockedDir.resolve(FileProcessor.partFileName("metrics.dat", 1)));
+        assertThrows(IOException.class,
+                () -> processor.splitFile(testFile.toString(), blockedDir.toString(), 1000));
+
+        FileProcessorMetrics.OperationStats split = metrics.get(FileProcessorListener.Operation.SPLIT);
+        assertEquals(2, split.getOperationCount());
+        assertEquals(10, split.getPartCount());
+        assertEquals(10_000, split.getByteCount());
+        assertTrue(split.getBytesPerSecond() > 0);
+        assertTrue(split.getPhaseNanos(FileProcessorListener.Phase.TRANSFER) > 0);
+        assertTrue(split.getPartLatencyPercentile(50) <= split.getPartLatencyPercentile(99));
+        assertEquals(10, Arrays.stream(split.getPartLatencyHistogram()).sum());
+
+        FileProcessorMetrics.OperationStats merge = metrics.get(FileProcessorListener.Operation.MERGE);
+        assertEquals(10, merge.getPartCount());
+        assertEquals(10_000, merge.getByteCount());
+        assertEquals(10_000, metrics.get(FileProcessorListener.Operation.COPY).getByteCount());
+        assertEquals(1, split.getFailureCount());
+        assertEquals(0, merge.getFailureCount());
+    }
+
+    @Test
+    void testFlightRecorderEvents() throws IOException {
+        FileProcessor processor = new FileProcessor();
+
+        Path testFile = tempDir.resolve("jfr.dat");
+        Files.write(testFile, new byte[3000]);
+        Path recordingFile = tempDir.resolve("recording.jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.enable("javaIO.FileOperation");
+            recording.enable("javaIO.FilePart");
+            recording.start();
+            processor.splitFile(testFile.toString(), tempDir.resolve("parts").toString(), 1000);
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+        List<RecordedEvent> operations = events.stream()
+                .filter(e -> e.getEventType().getName().equals("javaIO.FileOperation")).toList();
+        assertEquals(1, operations.size());
+        assertEquals("SPLIT", operations.get(0).getString("operation"));
+        assertEquals(3000, operations.get(0).getLong("bytes"));
+        assertEquals(3, operations.get(0).getInt("parts"));
+        assertFalse(operations.get(0).getBoolean("failed"));
+        assertEquals(3, events.stream().filter(e -> e.getEventType().getName().equals("javaIO.FilePart")).count());
+    }
+}
@@ -0,0 +1,129 @@
+package javaIO;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Оценка числа различных элементов алгоритмом HyperLogLog.
+ * Занимает 2^precision байт независимо от числа элементов; относительная погрешность
+ * около 1.04 / sqrt(2^precision), например 0.8% при precision = 14 (16 КБ).
+ * <p>
+ * На вход подаются 64-битные хеши элементов с хорошо перемешанными битами
+ * (см. {@link SpaceSavingSummary#hash(char[], int, int)}). Оценки частей корпуса объединяются
+ * через {@link #merge(HyperLogLog)} без потери точности. Экземпляр не потокобезопасен.
+ */
+public class HyperLogLog {
+
+    public static final int MIN_PRECISION = 4;
+    public static final int MAX_PRECISION = 18;
+    public static final int DEFAULT_PRECISION = 14;
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException(String.format(
+                    "Точность HyperLogLog должна быть от %d до %d: %d", MIN_PRECISION, MAX_PRECISION, precision));
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * Учитывает элемент по его 64-битному хешу: старшие precision бит выбирают регистр,
+     * остальные дают длину серии нулей
+     */
+    public void add(long hash) {
+        int register = (int) (hash >>> (64 - precision));
+        // Единица-ограничитель не даёт серии выйти за оставшиеся 64 - precision бит
+        int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        if (rank > registers[register]) {
+            registers[register] = (byte) rank;
+        }
+    }
+
+    /**
+     * @return оценка числа различных элементов
+     */
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+
+        double estimate = alpha(m) * m * m / sum;
+        // На малых количествах точнее линейный подсчёт по пустым регистрам
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Объединение с оценкой той же точности: результат равен оценке по объединению множеств
+     */
+    public HyperLogLog merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException(String.format(
+                    "Нельзя объединить HyperLogLog разной точности: %d и %d", precision, other.precision));
+        }
+        HyperLogLog result = copy();
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > result.registers[i]) {
+                result.registers[i] = other.registers[i];
+            }
+        }
+        return result;
+    }
+
+    public HyperLogLog copy() {
+        HyperLogLog copy = new HyperLogLog(precision);
+        System.arraycopy(registers, 0, copy.registers, 0, registers.length);
+        return copy;
+    }
+
+    public int getPrecision() { return precision; }
+
+    /**
+     * Ожидаемая относительная погрешность оценки
+     */
+    public double getStandardError() {
+        return 1.04 / Math.sqrt(registers.length);
+    }
+
+    public void write(DataOutput out) throws IOException {
+        out.writeByte(precision);
+        out.write(registers);
+    }
+
+    public static HyperLogLog read(DataInput in) throws IOException {
+        int precision = in.readByte();
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IOException("Повреждённая оценка HyperLogLog: precision=" + precision);
+        }
+        HyperLogLog sketch = new HyperLogLog(precision);
+        in.readFully(sketch.registers);
+        for (byte register : sketch.registers) {
+            if (register < 0 || register > 65 - precision) {
+                throw new IOException("Повреждённая оценка HyperLogLog: регистр " + register);
+            }
+        }
+        return sketch;
+    }
+
+    private static double alpha(int m) {
+        switch (m) {
+            case 16: return 0.673;
+            case 32: return 0.697;
+            case 64: return 0.709;
+            default: return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package javaIO;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+class HyperLogLogTest {
+
+    @Test
+    void testEstimateWithinStandardError() {
+        for (int precision : new int[] {10, 14}) {
+            for (long distinct : new long[] {100, 10_000, 1_000_000}) {
+                HyperLogLog sketch = new HyperLogLog(precision);
+                for (long i = 0; i < distinct; i++) {
+                    // Повторы не меняют оценку
+                    sketch.add(SpaceSavingSummary.mix(i));
+                    sketch.add(SpaceSavingSummary.mix(i));
+                }
+                double relativeError = Math.abs(sketch.estimate() - distinct) / (double) distinct;
+                assertTrue(relativeError < 4 * sketch.getStandardError(),
+                        String.format("p=%d, n=%d, estimate=%d", precision, distinct, sketch.estimate()));
+            }
+        }
+        assertEquals(0, new HyperLogLog(HyperLogLog.DEFAULT_PRECISION).estimate());
+    }
+
+    @Test
+    void testMergeEqualsUnion() {
+        HyperLogLog left = new HyperLogLog(12);
+        HyperLogLog right = new HyperLogLog(12);
+        HyperLogLog union = new HyperLogLog(12);
+        for (long i = 0; i < 60_000; i++) {
+            long hash = SpaceSavingSummary.mix(i);
+            (i < 40_000 ? left : right).add(hash);
+            if (i >= 20_000) {
+                left.add(hash);
+            }
+            union.add(hash);
+        }
+
+        assertEquals(union.estimate(), left.merge(right).estimate());
+        assertThrows(IllegalArgumentException.class, () -> left.merge(new HyperLogLog(10)));
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(HyperLogLog.MAX_PRECISION + 1));
+    }
+
+    @Test
+    void testSerializationRoundTrip() throws IOException {
+        HyperLogLog sketch = new HyperLogLog(8);
+        for (long i = 0; i < 5_000; i++) {
+            sketch.add(SpaceSavingSummary.mix(i));
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        sketch.write(new DataOutputStream(bytes));
+        assertEquals(1 + 256, bytes.size());
+
+        HyperLogLog restored = HyperLogLog.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(8, restored.getPrecision());
+        assertEquals(sketch.estimate(), restored.estimate());
+    }
+}
@@ -0,0 +1,295 @@
+package javaIO;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Инкрементальный анализ растущего файла (например, лога, в который продолжают писать).
+ * Хранит смещение, до которого файл уже обработан, и состояние {@link TextAnalysisEngine}
+ * вместе с незаконченной последней строкой, поэтому каждое обновление читает только дописанные байты.
+ * <p>
+ * Если файл стал короче обработанного, был подменён (ротация лога) или его уже обработанный хвост
+ * изменился, анализ начинается заново с нулевого смещения.
+ * Состояние можно сохранять в файл контрольной точки, чтобы следующий запуск продолжил с того же места.
+ */
+public class IncrementalTextAnalyzer {
+
+    private static final int CHECKPOINT_MAGIC = 0x54414332; // "TAC2"
+    // Контрольная точка первого формата (без версии состояния движка): не читается, анализ начинается заново
+    private static final int LEGACY_CHECKPOINT_MAGIC = 0x54414331; // "TAC1"
+    private static final int TAIL_CHECK_SIZE = 4096;
+
+    private final Path file;
+    private final Path checkpoint;
+
+    private TextAnalysisEngine engine = new TextAnalysisEngine();
+    private long offset;
+    private Object fileKey;
+    private int tailCrc;
+    private long resets;
+
+    /**
+     * @param file анализируемый файл; может ещё не существовать
+     */
+    public IncrementalTextAnalyzer(Path file) {
+        this.file = file;
+        this.checkpoint = null;
+    }
+
+    /**
+     * @param checkpoint файл контрольной точки: если он есть и соответствует файлу, анализ продолжается
+     *                   с сохранённого смещения, а {@link #saveCheckpoint()} перезаписывает его
+     */
+    public IncrementalTextAnalyzer(Path file, Path checkpoint) throws IOException {
+        this.file = file;
+        this.checkpoint = Objects.requireNonNull(checkpoint);
+        if (Files.exists(checkpoint)) {
+            loadCheckpoint();
+        }
+    }
+
+    /**
+     * Дочитывает файл от сохранённого смещения до текущего конца
+     * @return результат по всему файлу на текущий момент
+     */
+    public synchronized TextFileAnalyzer.AnalysisResult update() throws IOException {
+        advance();
+        return getResult();
+    }
+
+    /**
+     * @return изменилась ли статистика: файл вырос или анализ начался заново
+     */
+    private synchronized boolean advance() throws IOException {
+        long previousResets = resets;
+        if (!Files.exists(file)) {
+            if (offset > 0) {
+                restart();
+            }
+            return resets != previousResets;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            Object currentKey = Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+
+            if (size < offset || !isSameFile(currentKey) || !tailMatches(channel)) {
+                restart();
+            }
+            fileKey = currentKey;
+
+            if (size > offset) {
+                TextFileAnalyzer.feedRange(channel, offset, size, engine, DirectBufferPool.shared());
+                offset = size;
+                tailCrc = tailCrc(channel, offset);
+                return true;
+            }
+        }
+        return resets != previousResets;
+    }
+
+    /**
+     * Результат по уже прочитанной части: незаконченная последняя строка засчитывается так,
+     * как если бы файл на ней заканчивался, но её состояние сохраняется для следующего обновления
+     */
+    public synchronized TextFileAnalyzer.AnalysisResult getResult() {
+        return engine.toFinishedResult(offset);
+    }
+
+    public synchronized long getOffset() { return offset; }
+
+    /**
+     * Сколько раз анализ начинался заново из-за усечения или подмены файла
+     */
+    public synchronized long getResetCount() { return resets; }
+
+    /**
+     * Сохраняет смещение, контрольную сумму хвоста и состояние движка.
+     * Запись идёт во временный файл с атомарным переименованием.
+     */
+    public synchronized void saveCheckpoint() throws IOException {
+        if (checkpoint == null) {
+            throw new IllegalStateException("Файл контрольной точки не задан");
+        }
+
+        Path tempPath = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath)))) {
+            out.writeInt(CHECKPOINT_MAGIC);
+            out.writeInt(TextAnalysisEngine.STATE_VERSION);
+            out.writeUTF(file.toAbsolutePath().normalize().toString());
+            out.writeUTF(fileKey == null ? "" : fileKey.toString());
+            out.writeLong(offset);
+            out.writeInt(tailCrc);
+            engine.writeState(out);
+        }
+        Files.move(tempPath, checkpoint, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Следит за файлом в фоновом потоке и вызывает onUpdate после каждого роста или сброса.
+     * События WatchService дополняются опросом раз в pollInterval: на некоторых файловых системах
+     * события о дописывании приходят с опозданием или не приходят вовсе.
+     * @return наблюдение; close() останавливает поток и пробрасывает ошибку, если он завершился с ней
+     */
+    public Watch watch(Duration pollInterval, Consumer<TextFileAnalyzer.AnalysisResult> onUpdate) throws IOException {
+        if (pollInterval.isNegative() || pollInterval.isZero()) {
+            throw new IllegalArgumentException("Интервал опроса должен быть положительным: " + pollInterval);
+        }
+        return new Watch(pollInterval, onUpdate);
+    }
+
+    /**
+     * Фоновое наблюдение за файлом
+     */
+    public class Watch implements AutoCloseable {
+        private final WatchService watchService;
+        private final Thread thread;
+        private volatile IOException failure;
+
+        private Watch(Duration pollInterval, Consumer<TextFileAnalyzer.AnalysisResult> onUpdate) throws IOException {
+            Path directory = file.toAbsolutePath().getParent();
+            watchService = directory.getFileSystem().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+
+            thread = new Thread(() -> run(pollInterval, onUpdate), "text-analyzer-watch-" + file.getFileName());
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        private void run(Duration pollInterval, Consumer<TextFileAnalyzer.AnalysisResult> onUpdate) {
+            try {
+                onUpdate.accept(update());
+                while (!Thread.currentThread().isInterrupted()) {
+                    // События только будят поток: что именно изменилось, всё равно выясняет advance()
+                    WatchKey key = watchService.poll(pollInterval.toNanos(), TimeUnit.NANOSECONDS);
+                    if (key != null) {
+                        key.pollEvents();
+                        key.reset();
+                    }
+
+                    if (advance()) {
+                        onUpdate.accept(getResult());
+                    }
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                // close() остановил наблюдение
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            thread.interrupt();
+            watchService.close();
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    private void restart() {
+        engine = new TextAnalysisEngine();
+        offset = 0;
+        tailCrc = 0;
+        resets++;
+    }
+
+    private boolean isSameFile(Object currentKey) {
+        return offset == 0 || fileKey == null || currentKey == null || fileKey.equals(currentKey);
+    }
+
+    /**
+     * Проверяет, что последние уже обработанные байты не изменились: дописывание их не трогает,
+     * а перезапись файла на месте почти наверняка меняет
+     */
+    private boolean tailMatches(FileChannel channel) throws IOException {
+        return offset == 0 || tailCrc(channel, offset) == tailCrc;
+    }
+
+    private static int tailCrc(FileChannel channel, long end) throws IOException {
+        int length = (int) Math.min(TAIL_CHECK_SIZE, end);
+        ByteBuffer tail = ByteBuffer.allocate(length);
+        long start = end - length;
+        while (tail.hasRemaining()) {
+            if (channel.read(tail, start + tail.position()) < 0) {
+                return ~0;
+            }
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(tail.flip());
+        return (int) crc.getValue();
+    }
+
+    private void loadCheckpoint() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(checkpoint)))) {
+            int magic = in.readInt();
+            if (magic == LEGACY_CHECKPOINT_MAGIC) {
+                resets++;
+                return;
+            }
+            if (magic != CHECKPOINT_MAGIC) {
+                throw new IOException("Неизвестный формат контрольной точки: " + checkpoint);
+            }
+            // Состояние движка другой версии прочитать нельзя: файл будет проанализирован заново
+            if (in.readInt() != TextAnalysisEngine.STATE_VERSION) {
+                resets++;
+                return;
+            }
+            String savedPath = in.readUTF();
+            if (!savedPath.equals(file.toAbsolutePath().normalize().toString())) {
+                throw new IOException(String.format(
+                        "Контрольная точка %s относится к другому файлу: %s", checkpoint, savedPath));
+            }
+            String savedKey = in.readUTF();
+            long savedOffset = in.readLong();
+            int savedTailCrc = in.readInt();
+            TextAnalysisEngine savedEngine = TextAnalysisEngine.readState(in);
+
+            // Ключ файла сравнивается по строке: после перезапуска объект ключа другой
+            Object currentKey = currentFileKey();
+            if (currentKey != null && !savedKey.isEmpty() && !savedKey.equals(currentKey.toString())) {
+                resets++;
+                return;
+            }
+            engine = savedEngine;
+            offset = savedOffset;
+            tailCrc = savedTailCrc;
+            fileKey = currentKey;
+        }
+    }
+
+    private Object currentFileKey() throws IOException {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+}
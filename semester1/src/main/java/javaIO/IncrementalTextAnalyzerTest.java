@@ -0,0 +1,143 @@
+package javaIO;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+class IncrementalTextAnalyzerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testAppendsMatchFullAnalysis() throws IOException {
+        Path log = tempDir.resolve("app.log");
+        IncrementalTextAnalyzer incremental = new IncrementalTextAnalyzer(log);
+        TextFileAnalyzer analyzer = new TextFileAnalyzer();
+
+        assertEquals(0, incremental.update().getLineCount());
+
+        // Дописывания режут строку, пару \r\n и символ UTF-8 посередине
+        byte[] euro = "€".getBytes(StandardCharsets.UTF_8);
+        byte[][] appends = {
+                "first line\nsecond ".getBytes(StandardCharsets.UTF_8),
+                "half\r".getBytes(StandardCharsets.UTF_8),
+                new byte[] {'\n', euro[0]},
+                new byte[] {euro[1], euro[2], ' ', 'x', '\n'},
+                "tail without newline".getBytes(StandardCharsets.UTF_8)
+        };
+
+        for (byte[] append : appends) {
+            Files.write(log, append, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            TextFileAnalyzer.AnalysisResult actual = incremental.update();
+            TextFileAnalyzer.AnalysisResult expected = analyzer.analyzeFile(log.toString());
+
+            assertEquals(expected.getLineCount(), actual.getLineCount());
+            assertEquals(expected.getWordCount(), actual.getWordCount());
+            assertEquals(expected.getCharCount(), actual.getCharCount());
+            assertEquals(expected.getCharFrequency(), actual.getCharFrequency());
+            assertEquals(Files.size(log), incremental.getOffset());
+        }
+        assertEquals(0, incremental.getResetCount());
+    }
+
+    @Test
+    void testTruncationRestartsAnalysis() throws IOException {
+        Path log = tempDir.resolve("rotated.log");
+        Files.writeString(log, "one two three\nfour five\n");
+        IncrementalTextAnalyzer incremental = new IncrementalTextAnalyzer(log);
+        assertEquals(5, incremental.update().getWordCount());
+
+        Files.writeString(log, "new\n");
+        TextFileAnalyzer.AnalysisResult result = incremental.update();
+
+        assertEquals(1, result.getLineCount());
+        assertEquals(1, result.getWordCount());
+        assertEquals(1, incremental.getResetCount());
+    }
+
+    @Test
+    void testCheckpointResumesFromOffset() throws IOException {
+        Path log = tempDir.resolve("resume.log");
+        Path checkpoint = tempDir.resolve("resume.checkpoint");
+        Files.writeString(log, "alpha beta\ngam");
+
+        IncrementalTextAnalyzer first = new IncrementalTextAnalyzer(log, checkpoint);
+        first.update();
+        first.saveCheckpoint();
+
+        Files.writeString(log, "ma 😀\n", StandardOpenOption.APPEND);
+        IncrementalTextAnalyzer second = new IncrementalTextAnalyzer(log, checkpoint);
+        assertEquals(first.getOffset(), second.getOffset());
+
+        TextFileAnalyzer.AnalysisResult result = second.update();
+        assertEquals(2, result.getLineCount());
+        assertEquals(4, result.getWordCount());
+        assertEquals(0, second.getResetCount());
+    }
+
+    @Test
+    void testOutdatedCheckpointRestartsAnalysis() throws IOException {
+        Path log = tempDir.resolve("outdated.log");
+        Path checkpoint = tempDir.resolve("outdated.checkpoint");
+        Files.writeString(log, "one two\nthree\n");
+
+        IncrementalTextAnalyzer first = new IncrementalTextAnalyzer(log, checkpoint);
+        first.update();
+        first.saveCheckpoint();
+
+        // Версия состояния движка сразу за сигнатурой: подменяем её на будущую
+        byte[] saved = Files.readAllBytes(checkpoint);
+        ByteBuffer.wrap(saved).putInt(Integer.BYTES, TextAnalysisEngine.STATE_VERSION + 1);
+        Files.write(checkpoint, saved);
+        assertRestartsFromCheckpoint(log, checkpoint);
+
+        // Контрольная точка первого формата, "TAC1", с состоянием старой раскладки
+        ByteBuffer legacy = ByteBuffer.allocate(saved.length - Integer.BYTES);
+        legacy.putInt(0x54414331).put(saved, 2 * Integer.BYTES, saved.length - 2 * Integer.BYTES);
+        Files.write(checkpoint, legacy.array());
+        assertRestartsFromCheckpoint(log, checkpoint);
+    }
+
+    private static void assertRestartsFromCheckpoint(Path log, Path checkpoint) throws IOException {
+        IncrementalTextAnalyzer analyzer = new IncrementalTextAnalyzer(log, checkpoint);
+        assertEquals(0, analyzer.getOffset());
+        assertEquals(1, analyzer.getResetCount());
+
+        TextFileAnalyzer.AnalysisResult result = analyzer.update();
+        assertEquals(2, result.getLineCount());
+        assertEquals(3, result.getWordCount());
+        assertEquals(Files.size(log), analyzer.getOffset());
+    }
+
+    @Test
+    void testWatchReportsGrowth() throws Exception {
+        Path log = tempDir.resolve("watched.log");
+        Files.writeString(log, "start\n");
+        BlockingQueue<TextFileAnalyzer.AnalysisResult> updates = new LinkedBlockingQueue<>();
+
+        IncrementalTextAnalyzer incremental = new IncrementalTextAnalyzer(log);
+        IncrementalTextAnalyzer.Watch watch = incremental.watch(Duration.ofMillis(50), updates::add);
+        try {
+            assertEquals(1, updates.poll(5, TimeUnit.SECONDS).getLineCount());
+
+            Files.writeString(log, "more lines\nhere\n", StandardOpenOption.APPEND);
+            TextFileAnalyzer.AnalysisResult result = updates.poll(5, TimeUnit.SECONDS);
+            assertNotNull(result);
+            assertEquals(3, result.getLineCount());
+        } finally {
+            watch.close();
+        }
+    }
+}
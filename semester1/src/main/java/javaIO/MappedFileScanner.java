@@ -0,0 +1,151 @@
+package javaIO;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Параллельное сканирование файла через отображение в память.
+ * Файл любого размера делится на сегменты (каждый не больше 2 ГБ — ограничение MappedByteBuffer),
+ * сегменты отображаются и обрабатываются в fork/join-пуле, а результаты объединяются попарно.
+ */
+public class MappedFileScanner {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+
+    /**
+     * Обработчик сегментов. Получает отображённый сегмент только для чтения с порядком байт
+     * LITTLE_ENDIAN, так что его удобно читать по 8 байт через {@link ByteBuffer#getLong(int)}.
+     * Вызывается из нескольких потоков одновременно.
+     */
+    public interface SegmentVisitor<R> {
+        R visit(ByteBuffer segment, long fileOffset);
+
+        /**
+         * Объединяет результаты соседних сегментов: left всегда идёт в файле раньше right
+         */
+        R combine(R left, R right);
+    }
+
+    private final int segmentSize;
+    private final ForkJoinPool pool;
+
+    public MappedFileScanner() {
+        this(DEFAULT_SEGMENT_SIZE, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param segmentSize размер одного отображаемого сегмента в байтах
+     * @param pool пул, в котором обрабатываются сегменты
+     */
+    public MappedFileScanner(int segmentSize, ForkJoinPool pool) {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("Размер сегмента должен быть положительным: " + segmentSize);
+        }
+        this.segmentSize = segmentSize;
+        this.pool = pool;
+    }
+
+    /**
+     * Сканирует файл целиком
+     * @return объединённый результат всех сегментов; для пустого файла — результат обработки пустого буфера
+     */
+    public <R> R scan(Path file, SegmentVisitor<R> visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize == 0) {
+                return visitor.visit(ByteBuffer.allocate(0).order(ByteOrder.LITTLE_ENDIAN), 0);
+            }
+
+            long segmentCount = (fileSize + segmentSize - 1) / segmentSize;
+            try {
+                return pool.invoke(new ScanTask<>(channel, fileSize, visitor, 0, segmentCount));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Обработчик, считающий вхождения байта. Читает сегмент по 8 байт и находит совпадения
+     * побитовыми операциями (SWAR), без ветвления на каждый байт.
+     */
+    public static SegmentVisitor<Long> countingVisitor(byte value) {
+        long pattern = (value & 0xFFL) * 0x0101010101010101L;
+
+        return new SegmentVisitor<>() {
+            @Override
+            public Long visit(ByteBuffer segment, long fileOffset) {
+                long count = 0;
+                int limit = segment.limit();
+                int i = 0;
+                for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+                    count += Long.bitCount(zeroBytes(segment.getLong(i) ^ pattern));
+                }
+                for (; i < limit; i++) {
+                    if (segment.get(i) == value) {
+                        count++;
+                    }
+                }
+                return count;
+            }
+
+            @Override
+            public Long combine(Long left, Long right) {
+                return left + right;
+            }
+        };
+    }
+
+    /**
+     * Возвращает слово, в котором старший бит каждого байта установлен ровно для нулевых байт x
+     */
+    static long zeroBytes(long x) {
+        long low7 = 0x7F7F7F7F7F7F7F7FL;
+        return ~(((x & low7) + low7) | x | low7);
+    }
+
+    private final class ScanTask<R> extends RecursiveTask<R> {
+        private final FileChannel channel;
+        private final long fileSize;
+        private final SegmentVisitor<R> visitor;
+        private final long firstSegment;
+        private final long endSegment;
+
+        ScanTask(FileChannel channel, long fileSize, SegmentVisitor<R> visitor, long firstSegment, long endSegment) {
+            this.channel = channel;
+            this.fileSize = fileSize;
+            this.visitor = visitor;
+            this.firstSegment = firstSegment;
+            this.endSegment = endSegment;
+        }
+
+        @Override
+        protected R compute() {
+            if (endSegment - firstSegment == 1) {
+                long offset = firstSegment * segmentSize;
+                long size = Math.min(segmentSize, fileSize - offset);
+                try {
+                    ByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, offset, size)
+                            .order(ByteOrder.LITTLE_ENDIAN);
+                    return visitor.visit(segment, offset);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            long middle = (firstSegment + endSegment) >>> 1;
+            ScanTask<R> left = new ScanTask<>(channel, fileSize, visitor, firstSegment, middle);
+            ScanTask<R> right = new ScanTask<>(channel, fileSize, visitor, middle, endSegment);
+            right.fork();
+            R leftResult = left.compute();
+            return visitor.combine(leftResult, right.join());
+        }
+    }
+}
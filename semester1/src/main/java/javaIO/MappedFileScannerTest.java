@@ -0,0 +1,78 @@
+package javaIO;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+class MappedFileScannerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testCountingVisitorMatchesNaiveCount() throws IOException {
+        byte[] data = new byte[100_003];
+        new Random(7).nextBytes(data);
+        Path file = Files.createTempFile(tempDir, "scan", ".dat");
+        Files.write(file, data);
+
+        long expected = 0;
+        for (byte b : data) {
+            if (b == (byte) 0x80) {
+                expected++;
+            }
+        }
+
+        MappedFileScanner scanner = new MappedFileScanner(4099, ForkJoinPool.commonPool());
+        assertEquals(expected, scanner.scan(file, MappedFileScanner.countingVisitor((byte) 0x80)));
+    }
+
+    @Test
+    void testSegmentsAreCombinedInFileOrder() throws IOException {
+        byte[] data = new byte[10_000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) ('a' + i % 26);
+        }
+        Path file = Files.createTempFile(tempDir, "order", ".dat");
+        Files.write(file, data);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        String content;
+        try {
+            MappedFileScanner scanner = new MappedFileScanner(333, pool);
+            content = scanner.scan(file, new MappedFileScanner.SegmentVisitor<String>() {
+                @Override
+                public String visit(ByteBuffer segment, long fileOffset) {
+                    byte[] bytes = new byte[segment.remaining()];
+                    segment.get(bytes);
+                    assertEquals(data[(int) fileOffset], bytes[0]);
+                    return new String(bytes);
+                }
+
+                @Override
+                public String combine(String left, String right) {
+                    return left + right;
+                }
+            });
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(new String(data), content);
+    }
+
+    @Test
+    void testEmptyFile() throws IOException {
+        Path file = Files.createTempFile(tempDir, "empty", ".dat");
+        MappedFileScanner scanner = new MappedFileScanner();
+
+        assertEquals(0L, scanner.scan(file, MappedFileScanner.countingVisitor((byte) '\n')));
+    }
+}
@@ -0,0 +1,251 @@
+package javaIO;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Дерево Меркла над файлом: листья — SHA-256 блоков фиксированного размера, узлы — SHA-256 пар детей.
+ * Листья хешируются параллельно по отображённым сегментам, поэтому скорость растёт с числом ядер.
+ * Сохранённое дерево позволяет проверить файл и найти изменившиеся диапазоны, сравнивая только хеши.
+ */
+public class MerkleTree {
+
+    public static final int DEFAULT_LEAF_SIZE = 1 << 20;
+
+    private static final byte LEAF_PREFIX = 0;
+    private static final byte NODE_PREFIX = 1;
+    private static final int TARGET_SEGMENT_SIZE = 64 << 20;
+
+    /**
+     * Диапазон байт файла
+     */
+    public static class Range {
+        private final long offset;
+        private final long length;
+
+        public Range(long offset, long length) {
+            this.offset = offset;
+            this.length = length;
+        }
+
+        public long getOffset() { return offset; }
+        public long getLength() { return length; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Range)) return false;
+            Range range = (Range) o;
+            return offset == range.offset && length == range.length;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(offset) * 31 + Long.hashCode(length);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Range{offset=%d, length=%d}", offset, length);
+        }
+    }
+
+    private final int leafSize;
+    private final long fileSize;
+    private final byte[][][] levels;
+
+    private MerkleTree(int leafSize, long fileSize, byte[][][] levels) {
+        this.leafSize = leafSize;
+        this.fileSize = fileSize;
+        this.levels = levels;
+    }
+
+    public static MerkleTree build(Path file) throws IOException {
+        return build(file, DEFAULT_LEAF_SIZE, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Строит дерево по файлу
+     * @param leafSize размер листа в байтах
+     * @param pool пул, в котором хешируются листья
+     */
+    public static MerkleTree build(Path file, int leafSize, ForkJoinPool pool) throws IOException {
+        if (leafSize <= 0) {
+            throw new IllegalArgumentException("Размер листа должен быть положительным: " + leafSize);
+        }
+
+        long fileSize = Files.size(file);
+        long leafCount = Math.max(1, (fileSize + leafSize - 1) / leafSize);
+        if (leafCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Слишком маленький лист для файла размером " + fileSize);
+        }
+
+        byte[][] leaves = new byte[(int) leafCount][];
+        if (fileSize == 0) {
+            leaves[0] = hashLeaf(newSha256(), ByteBuffer.allocate(0));
+        } else {
+            // Сегмент содержит целое число листьев, поэтому лист никогда не попадает в два сегмента
+            int leavesPerSegment = Math.max(1, TARGET_SEGMENT_SIZE / leafSize);
+            int segmentSize = leavesPerSegment * leafSize;
+            new MappedFileScanner(segmentSize, pool).scan(file, new MappedFileScanner.SegmentVisitor<Void>() {
+                @Override
+                public Void visit(ByteBuffer segment, long fileOffset) {
+                    MessageDigest sha256 = newSha256();
+                    int firstLeaf = (int) (fileOffset / leafSize);
+                    for (int position = 0, i = 0; position < segment.limit(); position += leafSize, i++) {
+                        int length = Math.min(leafSize, segment.limit() - position);
+                        leaves[firstLeaf + i] = hashLeaf(sha256, segment.slice(position, length));
+                    }
+                    return null;
+                }
+
+                @Override
+                public Void combine(Void left, Void right) {
+                    return null;
+                }
+            });
+        }
+
+        return new MerkleTree(leafSize, fileSize, buildLevels(leaves));
+    }
+
+    public int getLeafSize() { return leafSize; }
+    public long getFileSize() { return fileSize; }
+    public int getLeafCount() { return levels[0].length; }
+
+    public byte[] getRootHash() {
+        return levels[levels.length - 1][0].clone();
+    }
+
+    public String getRootHex() {
+        return HexFormat.of().formatHex(levels[levels.length - 1][0]);
+    }
+
+    /**
+     * Проверяет, что файл по-прежнему соответствует дереву
+     */
+    public boolean verify(Path file) throws IOException {
+        return findChangedRanges(file).isEmpty();
+    }
+
+    /**
+     * Строит дерево по текущему содержимому файла и возвращает изменившиеся диапазоны
+     */
+    public List<Range> findChangedRanges(Path file) throws IOException {
+        return diff(build(file, leafSize, ForkJoinPool.commonPool()));
+    }
+
+    /**
+     * Сравнивает с деревом другой версии файла и возвращает диапазоны (в координатах other), которые отличаются.
+     * При одинаковом числе листьев спуск идёт только в несовпадающие поддеревья.
+     */
+    public List<Range> diff(MerkleTree other) {
+        if (leafSize != other.leafSize) {
+            throw new IllegalArgumentException(String.format(
+                    "Деревья построены с разным размером листа: %d и %d", leafSize, other.leafSize));
+        }
+
+        List<Integer> changedLeaves = new ArrayList<>();
+        if (getLeafCount() == other.getLeafCount()) {
+            collectChangedLeaves(other, levels.length - 1, 0, changedLeaves);
+        } else {
+            int commonLeaves = Math.min(getLeafCount(), other.getLeafCount());
+            for (int i = 0; i < other.getLeafCount(); i++) {
+                if (i >= commonLeaves || !Arrays.equals(levels[0][i], other.levels[0][i])) {
+                    changedLeaves.add(i);
+                }
+            }
+        }
+
+        return toRanges(changedLeaves, other.fileSize);
+    }
+
+    private void collectChangedLeaves(MerkleTree other, int level, int index, List<Integer> changedLeaves) {
+        if (Arrays.equals(levels[level][index], other.levels[level][index])) {
+            return;
+        }
+        if (level == 0) {
+            changedLeaves.add(index);
+            return;
+        }
+
+        int left = index * 2;
+        collectChangedLeaves(other, level - 1, left, changedLeaves);
+        if (left + 1 < levels[level - 1].length) {
+            collectChangedLeaves(other, level - 1, left + 1, changedLeaves);
+        }
+    }
+
+    /**
+     * Склеивает соседние изменённые листья в диапазоны
+     */
+    private List<Range> toRanges(List<Integer> changedLeaves, long size) {
+        List<Range> ranges = new ArrayList<>();
+        changedLeaves.sort(null);
+
+        int i = 0;
+        while (i < changedLeaves.size()) {
+            int first = changedLeaves.get(i);
+            int last = first;
+            while (i + 1 < changedLeaves.size() && changedLeaves.get(i + 1) == last + 1) {
+                last = changedLeaves.get(++i);
+            }
+            long start = (long) first * leafSize;
+            long end = Math.min((long) (last + 1) * leafSize, size);
+            ranges.add(new Range(start, Math.max(0, end - start)));
+            i++;
+        }
+        return ranges;
+    }
+
+    /**
+     * Уровни от листьев к корню; узел без пары переносится на следующий уровень без изменений
+     */
+    private static byte[][][] buildLevels(byte[][] leaves) {
+        List<byte[][]> levels = new ArrayList<>();
+        levels.add(leaves);
+        MessageDigest sha256 = newSha256();
+
+        byte[][] current = leaves;
+        while (current.length > 1) {
+            byte[][] next = new byte[(current.length + 1) / 2][];
+            for (int i = 0; i < next.length; i++) {
+                int left = i * 2;
+                if (left + 1 < current.length) {
+                    sha256.update(NODE_PREFIX);
+                    sha256.update(current[left]);
+                    sha256.update(current[left + 1]);
+                    next[i] = sha256.digest();
+                } else {
+                    next[i] = current[left];
+                }
+            }
+            levels.add(next);
+            current = next;
+        }
+        return levels.toArray(new byte[0][][]);
+    }
+
+    private static byte[] hashLeaf(MessageDigest sha256, ByteBuffer data) {
+        sha256.update(LEAF_PREFIX);
+        sha256.update(data);
+        return sha256.digest();
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+}
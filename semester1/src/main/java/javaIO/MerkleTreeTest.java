@@ -0,0 +1,82 @@
+package javaIO;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+class MerkleTreeTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testRootDoesNotDependOnParallelism() throws IOException {
+        Path file = createFile("root.dat", 100_000);
+
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool wide = new ForkJoinPool(8);
+        try {
+            MerkleTree sequential = MerkleTree.build(file, 1024, single);
+            MerkleTree parallel = MerkleTree.build(file, 1024, wide);
+
+            assertEquals(98, sequential.getLeafCount());
+            assertEquals(sequential.getRootHex(), parallel.getRootHex());
+            assertTrue(parallel.verify(file));
+        } finally {
+            single.shutdown();
+            wide.shutdown();
+        }
+    }
+
+    @Test
+    void testFindChangedRanges() throws IOException {
+        Path file = createFile("changed.dat", 100_000);
+        MerkleTree tree = MerkleTree.build(file, 1024, ForkJoinPool.commonPool());
+
+        byte[] data = Files.readAllBytes(file);
+        data[5000] ^= 1;
+        data[5000 + 1024] ^= 1;
+        data[90_000] ^= 1;
+        Files.write(file, data);
+
+        List<MerkleTree.Range> ranges = tree.findChangedRanges(file);
+
+        assertEquals(List.of(new MerkleTree.Range(4096, 2048), new MerkleTree.Range(89_088, 1024)), ranges);
+        assertFalse(tree.verify(file));
+    }
+
+    @Test
+    void testDiffOfGrownFile() throws IOException {
+        Path file = createFile("grown.dat", 3000);
+        MerkleTree before = MerkleTree.build(file, 1024, ForkJoinPool.commonPool());
+
+        Files.write(file, new byte[500], StandardOpenOption.APPEND);
+        MerkleTree after = MerkleTree.build(file, 1024, ForkJoinPool.commonPool());
+
+        assertEquals(List.of(new MerkleTree.Range(2048, 1452)), before.diff(after));
+    }
+
+    @Test
+    void testEmptyFile() throws IOException {
+        Path file = Files.createTempFile(tempDir, "empty", ".dat");
+
+        MerkleTree tree = MerkleTree.build(file);
+
+        assertEquals(1, tree.getLeafCount());
+        assertTrue(tree.verify(file));
+    }
+
+    private Path createFile(String name, int size) throws IOException {
+        byte[] data = new byte[size];
+        new Random(1).nextBytes(data);
+        return Files.write(tempDir.resolve(name), data);
+    }
+}
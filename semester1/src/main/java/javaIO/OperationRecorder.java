@@ -0,0 +1,112 @@
+package javaIO;
+
+import java.nio.file.Path;
+import java.util.concurrent.atomic.LongAdder;
+
+import javaIO.FileProcessorListener.Operation;
+import javaIO.FileProcessorListener.Phase;
+
+/**
+ * Замеры одной операции FileProcessor: передаёт время фаз и частей слушателю и пишет события JFR.
+ * Фазы и части могут приходить из разных потоков. Операция считается неудачной,
+ * если до close не был вызван {@link #complete()}.
+ */
+final class OperationRecorder implements AutoCloseable {
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final FileProcessorListener listener;
+    private final Operation operation;
+    private final FileOperationEvent event = new FileOperationEvent();
+    private final long startNanos;
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder parts = new LongAdder();
+    private final LongAdder[] phaseNanos = new LongAdder[PHASES.length];
+    private volatile boolean completed;
+
+    OperationRecorder(FileProcessorListener listener, Operation operation, Path path) {
+        this.listener = listener;
+        this.operation = operation;
+        for (int i = 0; i < phaseNanos.length; i++) {
+            phaseNanos[i] = new LongAdder();
+        }
+
+        event.begin();
+        event.operation = operation.name();
+        event.path = path.toString();
+        listener.operationStarted(operation, event.path);
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Учитывает фазу, начавшуюся в момент phaseStart
+     * @return текущее время, чтобы от него можно было отсчитывать следующую фазу
+     */
+    long phase(Phase phase, long phaseStart, long phaseBytes) {
+        long now = System.nanoTime();
+        phaseNanos[phase.ordinal()].add(now - phaseStart);
+        listener.phaseCompleted(operation, phase, now - phaseStart, phaseBytes);
+        return now;
+    }
+
+    Part startPart(int partNumber) {
+        return new Part(partNumber);
+    }
+
+    void addBytes(long count) {
+        bytes.add(count);
+    }
+
+    void complete() {
+        completed = true;
+    }
+
+    @Override
+    public void close() {
+        long nanos = System.nanoTime() - startNanos;
+        listener.operationCompleted(operation, bytes.sum(), nanos, !completed);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.bytes = bytes.sum();
+            event.parts = (int) parts.sum();
+            event.openNanos = phaseNanos[Phase.OPEN.ordinal()].sum();
+            event.readNanos = phaseNanos[Phase.READ.ordinal()].sum();
+            event.writeNanos = phaseNanos[Phase.WRITE.ordinal()].sum();
+            event.transferNanos = phaseNanos[Phase.TRANSFER.ordinal()].sum();
+            event.closeNanos = phaseNanos[Phase.CLOSE.ordinal()].sum();
+            event.failed = !completed;
+            event.commit();
+        }
+    }
+
+    /**
+     * Замер одной части: от startPart до end
+     */
+    final class Part {
+        private final int partNumber;
+        private final long partStart;
+        private final FilePartEvent partEvent = new FilePartEvent();
+
+        private Part(int partNumber) {
+            this.partNumber = partNumber;
+            partEvent.begin();
+            partStart = System.nanoTime();
+        }
+
+        void end(long partBytes) {
+            long nanos = System.nanoTime() - partStart;
+            bytes.add(partBytes);
+            parts.increment();
+            listener.partCompleted(operation, partNumber, partBytes, nanos);
+
+            partEvent.end();
+            if (partEvent.shouldCommit()) {
+                partEvent.operation = operation.name();
+                partEvent.partNumber = partNumber;
+                partEvent.bytes = partBytes;
+                partEvent.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package javaIO;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сводка самых частых слов алгоритмом Space-Saving с фиксированным числом счётчиков.
+ * Память не зависит от объёма текста: отслеживается не больше capacity слов, и новое слово
+ * вытесняет слово с минимальным счётчиком, наследуя его значение как погрешность.
+ * Счётчик каждого слова оценивает его частоту сверху не больше чем на error,
+ * а любое слово с частотой больше total / capacity гарантированно есть в сводке.
+ * <p>
+ * Сводки частей текста объединяются через {@link #merge(SpaceSavingSummary)}. Экземпляр не потокобезопасен.
+ */
+public class SpaceSavingSummary {
+
+    /**
+     * Отслеживаемое слово с оценкой частоты
+     */
+    public static class Entry {
+        private final String word;
+        private final long count;
+        private final long error;
+
+        public Entry(String word, long count, long error) {
+            this.word = word;
+            this.count = count;
+            this.error = error;
+        }
+
+        public String getWord() { return word; }
+
+        /**
+         * Оценка частоты сверху
+         */
+        public long getCount() { return count; }
+
+        /**
+         * Насколько count может превышать настоящую частоту
+         */
+        public long getError() { return error; }
+
+        /**
+         * Оценка частоты снизу
+         */
+        public long getGuaranteedCount() { return count - error; }
+
+        @Override
+        public String toString() {
+            return String.format("%s=%d(±%d)", word, count, error);
+        }
+    }
+
+    static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    static final long FNV_PRIME = 0x100000001b3L;
+
+    private final int capacity;
+    private final String[] words;
+    private final long[] hashes;
+    private final long[] counts;
+    private final long[] errors;
+    private int size;
+    private long totalCount;
+
+    // Мин-куча номеров слотов по counts и позиция каждого слота в куче
+    private final int[] heap;
+    private final int[] heapPosition;
+
+    // Открытая адресация с линейным пробированием: номер слота + 1, 0 — пусто
+    private final int[] index;
+    private final int indexMask;
+
+    /**
+     * @param capacity сколько слов отслеживается одновременно
+     */
+    public SpaceSavingSummary(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Ёмкость сводки должна быть положительной: " + capacity);
+        }
+        this.capacity = capacity;
+        words = new String[capacity];
+        hashes = new long[capacity];
+        counts = new long[capacity];
+        errors = new long[capacity];
+        heap = new int[capacity];
+        heapPosition = new int[capacity];
+
+        int indexSize = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) << 1;
+        index = new int[indexSize];
+        indexMask = indexSize - 1;
+    }
+
+    public void add(String word) {
+        add(word.toCharArray(), 0, word.length());
+    }
+
+    /**
+     * Учитывает одно вхождение слова из chars[offset, offset + length).
+     * Строка создаётся, только когда слово начинает отслеживаться.
+     */
+    public void add(char[] chars, int offset, int length) {
+        long hash = hash(chars, offset, length);
+        totalCount++;
+
+        int slot = find(chars, offset, length, hash);
+        if (slot >= 0) {
+            counts[slot]++;
+            siftDown(heapPosition[slot]);
+            return;
+        }
+
+        String word = new String(chars, offset, length);
+        if (size < capacity) {
+            slot = size++;
+            store(slot, word, hash, 1, 0);
+            heap[slot] = slot;
+            heapPosition[slot] = slot;
+            siftUp(slot);
+            return;
+        }
+
+        slot = heap[0];
+        long minCount = counts[slot];
+        removeFromIndex(slot);
+        store(slot, word, hash, minCount + 1, minCount);
+        siftDown(0);
+    }
+
+    public int getCapacity() { return capacity; }
+    public int getSize() { return size; }
+
+    /**
+     * Сколько всего слов учтено, включая вытесненные
+     */
+    public long getTotalCount() { return totalCount; }
+
+    /**
+     * Оценка частоты слова сверху; для неотслеживаемого слова — минимальный счётчик заполненной сводки
+     */
+    public long estimate(String word) {
+        char[] chars = word.toCharArray();
+        int slot = find(chars, 0, chars.length, hash(chars, 0, chars.length));
+        if (slot >= 0) {
+            return counts[slot];
+        }
+        return size < capacity ? 0 : counts[heap[0]];
+    }
+
+    /**
+     * @return до n слов по убыванию оценки частоты
+     */
+    public List<Entry> top(int n) {
+        List<Entry> entries = new ArrayList<>(size);
+        for (int slot = 0; slot < size; slot++) {
+            entries.add(new Entry(words[slot], counts[slot], errors[slot]));
+        }
+        entries.sort(Comparator.comparingLong(Entry::getCount).reversed().thenComparing(Entry::getWord));
+        return entries.subList(0, Math.min(n, entries.size()));
+    }
+
+    /**
+     * Объединяет две сводки в новую ёмкости this. Слово, которого нет в заполненной сводке,
+     * получает от неё её минимальный счётчик как погрешность, поэтому оценки остаются оценками сверху.
+     */
+    public SpaceSavingSummary merge(SpaceSavingSummary other) {
+        long thisMin = size < capacity ? 0 : counts[heap[0]];
+        long otherMin = other.size < other.capacity ? 0 : other.counts[other.heap[0]];
+
+        Map<String, long[]> union = new HashMap<>();
+        for (int slot = 0; slot < size; slot++) {
+            union.put(words[slot], new long[] {counts[slot] + otherMin, errors[slot] + otherMin});
+        }
+        for (int slot = 0; slot < other.size; slot++) {
+            long[] merged = union.get(other.words[slot]);
+            if (merged == null) {
+                union.put(other.words[slot], new long[] {other.counts[slot] + thisMin, other.errors[slot] + thisMin});
+            } else {
+                merged[0] += other.counts[slot] - otherMin;
+                merged[1] += other.errors[slot] - otherMin;
+            }
+        }
+
+        List<Map.Entry<String, long[]>> entries = new ArrayList<>(union.entrySet());
+        entries.sort(Comparator.comparingLong((Map.Entry<String, long[]> e) -> e.getValue()[0]).reversed());
+
+        SpaceSavingSummary result = new SpaceSavingSummary(capacity);
+        for (int i = 0; i < Math.min(capacity, entries.size()); i++) {
+            char[] chars = entries.get(i).getKey().toCharArray();
+            long[] value = entries.get(i).getValue();
+            int slot = result.size++;
+            result.store(slot, entries.get(i).getKey(), hash(chars, 0, chars.length), value[0], value[1]);
+            result.heap[slot] = slot;
+            result.heapPosition[slot] = slot;
+            result.siftUp(slot);
+        }
+        result.totalCount = totalCount + other.totalCount;
+        return result;
+    }
+
+    public SpaceSavingSummary copy() {
+        SpaceSavingSummary copy = new SpaceSavingSummary(capacity);
+        System.arraycopy(words, 0, copy.words, 0, size);
+        System.arraycopy(hashes, 0, copy.hashes, 0, size);
+        System.arraycopy(counts, 0, copy.counts, 0, size);
+        System.arraycopy(errors, 0, copy.errors, 0, size);
+        System.arraycopy(heap, 0, copy.heap, 0, size);
+        System.arraycopy(heapPosition, 0, copy.heapPosition, 0, size);
+        System.arraycopy(index, 0, copy.index, 0, index.length);
+        copy.size = size;
+        copy.totalCount = totalCount;
+        return copy;
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeInt(capacity);
+        out.writeLong(totalCount);
+        out.writeInt(size);
+        for (int slot = 0; slot < size; slot++) {
+            out.writeUTF(words[slot]);
+            out.writeLong(counts[slot]);
+            out.writeLong(errors[slot]);
+        }
+    }
+
+    static SpaceSavingSummary read(DataInput in) throws IOException {
+        int capacity = in.readInt();
+        long totalCount = in.readLong();
+        int size = in.readInt();
+        if (capacity <= 0 || size < 0 || size > capacity) {
+            throw new IOException(String.format("Повреждённая сводка слов: capacity=%d, size=%d", capacity, size));
+        }
+
+        SpaceSavingSummary summary = new SpaceSavingSummary(capacity);
+        for (int slot = 0; slot < size; slot++) {
+            String word = in.readUTF();
+            char[] chars = word.toCharArray();
+            summary.size++;
+            summary.store(slot, word, hash(chars, 0, chars.length), in.readLong(), in.readLong());
+            summary.heap[slot] = slot;
+            summary.heapPosition[slot] = slot;
+            summary.siftUp(slot);
+        }
+        summary.totalCount = totalCount;
+        return summary;
+    }
+
+    /**
+     * 64-битный хеш UTF-16 символов: FNV-1a с финальным перемешиванием из MurmurHash3,
+     * чтобы младшие биты годились для индексов таблиц и регистров HyperLogLog
+     */
+    static long hash(char[] chars, int offset, int length) {
+        long h = FNV_OFFSET;
+        for (int i = offset; i < offset + length; i++) {
+            h = (h ^ chars[i]) * FNV_PRIME;
+        }
+        return mix(h);
+    }
+
+    static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private void store(int slot, String word, long hash, long count, long error) {
+        words[slot] = word;
+        hashes[slot] = hash;
+        counts[slot] = count;
+        errors[slot] = error;
+
+        int i = (int) hash & indexMask;
+        while (index[i] != 0) {
+            i = (i + 1) & indexMask;
+        }
+        index[i] = slot + 1;
+    }
+
+    private int find(char[] chars, int offset, int length, long hash) {
+        int i = (int) hash & indexMask;
+        while (index[i] != 0) {
+            int slot = index[i] - 1;
+            if (hashes[slot] == hash && equals(words[slot], chars, offset, length)) {
+                return slot;
+            }
+            i = (i + 1) & indexMask;
+        }
+        return -1;
+    }
+
+    /**
+     * Удаление из таблицы с линейным пробированием со сдвигом назад, без «надгробий»
+     */
+    private void removeFromIndex(int slot) {
+        int i = (int) hashes[slot] & indexMask;
+        while (index[i] != slot + 1) {
+            i = (i + 1) & indexMask;
+        }
+
+        int hole = i;
+        i = (i + 1) & indexMask;
+        while (index[i] != 0) {
+            int home = (int) hashes[index[i] - 1] & indexMask;
+            // Элемент можно сдвинуть в дыру, если его домашняя позиция не лежит циклически в (hole, i]
+            if (((i - home) & indexMask) >= ((i - hole) & indexMask)) {
+                index[hole] = index[i];
+                hole = i;
+            }
+            i = (i + 1) & indexMask;
+        }
+        index[hole] = 0;
+    }
+
+    private static boolean equals(String word, char[] chars, int offset, int length) {
+        if (word.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (word.charAt(i) != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void siftUp(int position) {
+        int slot = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (counts[heap[parent]] <= counts[slot]) {
+                break;
+            }
+            place(heap[parent], position);
+            position = parent;
+        }
+        place(slot, position);
+    }
+
+    private void siftDown(int position) {
+        int slot = heap[position];
+        while (true) {
+            int child = position * 2 + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && counts[heap[child + 1]] < counts[heap[child]]) {
+                child++;
+            }
+            if (counts[slot] <= counts[heap[child]]) {
+                break;
+            }
+            place(heap[child], position);
+            position = child;
+        }
+        place(slot, position);
+    }
+
+    private void place(int slot, int position) {
+        heap[position] = slot;
+        heapPosition[slot] = position;
+    }
+}
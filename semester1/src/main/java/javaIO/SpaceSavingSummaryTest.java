@@ -0,0 +1,87 @@
+package javaIO;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+class SpaceSavingSummaryTest {
+
+    @Test
+    void testFindsHeavyHittersWithinErrorBounds() {
+        Random random = new Random(3);
+        SpaceSavingSummary summary = new SpaceSavingSummary(20);
+        Map<String, Long> exact = new HashMap<>();
+        for (int i = 0; i < 50_000; i++) {
+            // Несколько частых слов на фоне длинного хвоста редких
+            String word = random.nextInt(4) == 0 ? "hot" + random.nextInt(5) : "rare" + random.nextInt(10_000);
+            summary.add(word);
+            exact.merge(word, 1L, Long::sum);
+        }
+
+        assertEquals(50_000, summary.getTotalCount());
+        assertEquals(20, summary.getSize());
+        List<SpaceSavingSummary.Entry> top = summary.top(5);
+        for (SpaceSavingSummary.Entry entry : top) {
+            assertTrue(entry.getWord().startsWith("hot"), entry.toString());
+            long actual = exact.get(entry.getWord());
+            assertTrue(entry.getGuaranteedCount() <= actual && actual <= entry.getCount(), entry.toString());
+        }
+        for (Map.Entry<String, Long> entry : exact.entrySet()) {
+            assertTrue(summary.estimate(entry.getKey()) >= entry.getValue(), entry.getKey());
+        }
+    }
+
+    @Test
+    void testEvictionKeepsIndexConsistent() {
+        SpaceSavingSummary summary = new SpaceSavingSummary(3);
+        for (String word : "a b a c d a e d".split(" ")) {
+            summary.add(word);
+        }
+
+        List<SpaceSavingSummary.Entry> top = summary.top(3);
+        assertEquals("a", top.get(0).getWord());
+        assertEquals(3, top.get(0).getCount());
+        assertEquals(0, top.get(0).getError());
+        for (SpaceSavingSummary.Entry entry : top) {
+            assertEquals(entry.getCount(), summary.estimate(entry.getWord()));
+        }
+
+        char[] chars = "xxdxx".toCharArray();
+        long before = summary.estimate("d");
+        summary.add(chars, 2, 1);
+        assertEquals(before + 1, summary.estimate("d"));
+    }
+
+    @Test
+    void testMergeAndSerialization() throws IOException {
+        SpaceSavingSummary left = new SpaceSavingSummary(4);
+        SpaceSavingSummary right = new SpaceSavingSummary(4);
+        for (int i = 0; i < 100; i++) {
+            left.add("common");
+            right.add("common");
+            left.add("left" + (i % 7));
+            right.add("right" + (i % 9));
+        }
+
+        SpaceSavingSummary merged = left.merge(right);
+        assertEquals(400, merged.getTotalCount());
+        SpaceSavingSummary.Entry first = merged.top(1).get(0);
+        assertEquals("common", first.getWord());
+        assertTrue(first.getGuaranteedCount() <= 200 && 200 <= first.getCount());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        merged.write(new DataOutputStream(bytes));
+        SpaceSavingSummary restored = SpaceSavingSummary.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(merged.top(4).toString(), restored.top(4).toString());
+        assertEquals(merged.getTotalCount(), restored.getTotalCount());
+    }
+}
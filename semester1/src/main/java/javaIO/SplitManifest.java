@@ -0,0 +1,162 @@
+package javaIO;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Манифест разбиения: для каждой части хранит смещение, длину и CRC32C.
+ * Сохраняется текстовым файлом рядом с частями.
+ */
+public class SplitManifest {
+
+    public static final String EXTENSION = ".manifest";
+
+    private static final String HEADER = "# split-manifest v1";
+
+    public static class Part {
+        private final String fileName;
+        private final long offset;
+        private final long length;
+        private final int crc32c;
+
+        public Part(String fileName, long offset, long length, int crc32c) {
+            this.fileName = fileName;
+            this.offset = offset;
+            this.length = length;
+            this.crc32c = crc32c;
+        }
+
+        public String getFileName() { return fileName; }
+        public long getOffset() { return offset; }
+        public long getLength() { return length; }
+        public int getCrc32c() { return crc32c; }
+
+        @Override
+        public String toString() {
+            return String.format("Part{%s, offset=%d, length=%d, crc32c=%08x}", fileName, offset, length, crc32c);
+        }
+    }
+
+    private final String sourceName;
+    private final long totalSize;
+    private final Path directory;
+    private final List<Part> parts;
+
+    /**
+     * @param sourceName имя исходного файла
+     * @param totalSize размер исходного файла
+     * @param directory директория, в которой лежат части
+     * @param parts части в порядке следования
+     */
+    public SplitManifest(String sourceName, long totalSize, Path directory, List<Part> parts) {
+        long expectedOffset = 0;
+        for (Part part : parts) {
+            if (part.getOffset() != expectedOffset) {
+                throw new IllegalArgumentException("Части манифеста идут не подряд: " + part);
+            }
+            expectedOffset += part.getLength();
+        }
+        if (expectedOffset != totalSize) {
+            throw new IllegalArgumentException(String.format(
+                    "Сумма длин частей %d не равна размеру файла %d", expectedOffset, totalSize));
+        }
+
+        this.sourceName = sourceName;
+        this.totalSize = totalSize;
+        this.directory = directory;
+        this.parts = Collections.unmodifiableList(new ArrayList<>(parts));
+    }
+
+    public String getSourceName() { return sourceName; }
+    public long getTotalSize() { return totalSize; }
+    public Path getDirectory() { return directory; }
+    public List<Part> getParts() { return parts; }
+
+    /**
+     * Путь к файлу части относительно директории манифеста
+     */
+    public Path resolve(Part part) {
+        return directory.resolve(part.getFileName());
+    }
+
+    /**
+     * Путь, по которому манифест сохраняется по умолчанию
+     */
+    public Path defaultPath() {
+        return directory.resolve(sourceName + EXTENSION);
+    }
+
+    /**
+     * Сохраняет манифест. Запись идёт во временный файл с атомарным переименованием.
+     */
+    public void write(Path manifestPath) throws IOException {
+        Path tempPath = manifestPath.resolveSibling(manifestPath.getFileName() + ".tmp");
+
+        try (BufferedWriter writer = Files.newBufferedWriter(tempPath, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.write('\n');
+            writer.write(String.format("source\t%s\t%d\n", sourceName, totalSize));
+            for (Part part : parts) {
+                writer.write(String.format("part\t%s\t%d\t%d\t%08x\n",
+                        part.getFileName(), part.getOffset(), part.getLength(), part.getCrc32c()));
+            }
+        }
+
+        Files.move(tempPath, manifestPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Читает манифест; части ищутся в той же директории, где лежит манифест
+     */
+    public static SplitManifest read(Path manifestPath) throws IOException {
+        String sourceName = null;
+        long totalSize = -1;
+        List<Part> parts = new ArrayList<>();
+
+        try (BufferedReader reader = Files.newBufferedReader(manifestPath, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            if (!HEADER.equals(header)) {
+                throw new IOException("Неизвестный формат манифеста: " + manifestPath);
+            }
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                String[] fields = line.split("\t");
+                try {
+                    if (fields[0].equals("source") && fields.length == 3) {
+                        sourceName = fields[1];
+                        totalSize = Long.parseLong(fields[2]);
+                    } else if (fields[0].equals("part") && fields.length == 5) {
+                        parts.add(new Part(fields[1], Long.parseLong(fields[2]),
+                                Long.parseLong(fields[3]), Integer.parseUnsignedInt(fields[4], 16)));
+                    } else {
+                        throw new IOException("Неверная строка манифеста: " + line);
+                    }
+                } catch (NumberFormatException e) {
+                    throw new IOException("Неверная строка манифеста: " + line, e);
+                }
+            }
+        }
+
+        if (sourceName == null) {
+            throw new IOException("В манифесте нет строки source: " + manifestPath);
+        }
+
+        try {
+            return new SplitManifest(sourceName, totalSize, manifestPath.toAbsolutePath().getParent(), parts);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Повреждённый манифест " + manifestPath + ": " + e.getMessage(), e);
+        }
+    }
+}
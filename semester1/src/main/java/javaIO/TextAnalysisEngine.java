@@ -0,0 +1,763 @@
+package javaIO;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Потоковый анализатор текста в UTF-8: декодирует байты прямо из буфера однопроходным автоматом
+ * и считает строки, слова и символы без выделения памяти на строку.
+ * Частоты хранятся в массиве, индексированном кодовой точкой; массивы дополнительных плоскостей
+ * Unicode создаются при первой встрече символа из плоскости.
+ * <p>
+ * Результат совпадает с чтением через {@code BufferedReader.readLine()} поверх InputStreamReader в UTF-8:
+ * строки разделяются '\n', '\r' и "\r\n", слова считаются как {@code line.trim().split("\\s+")},
+ * символы — в единицах UTF-16, а некорректные последовательности байт заменяются на U+FFFD
+ * по тем же правилам, что и в декодере JDK.
+ * <p>
+ * Данные подаются через {@link #update(ByteBuffer)} кусками любого размера, последовательность UTF-8
+ * может быть разрезана между кусками. Конец данных отмечается вызовом {@link #finish()}.
+ * <p>
+ * По желанию движок ведёт сводку самых частых слов ({@link SpaceSavingSummary}) и оценки числа
+ * различных слов и строк ({@link HyperLogLog}). Слово для них — токен без управляющих символов по краям,
+ * обрезанный до {@link #MAX_TOKEN_LENGTH} символов; строка — как её вернул бы readLine().
+ * <p>
+ * Если сводка и оценки не ведутся, отрезки из печатных ASCII-символов и пробелов обрабатываются
+ * по 8 байт за раз (SWAR): классы байт и границы слов вычисляются битовыми операциями над long,
+ * а автомат UTF-8 вызывается только для управляющих символов и байт не из ASCII.
+ * Экземпляр не потокобезопасен.
+ */
+public class TextAnalysisEngine {
+
+    public static final int MAX_TOKEN_LENGTH = 256;
+
+    private static final int REPLACEMENT = 0xFFFD;
+    private static final int PLANE_SIZE = 1 << 16;
+    private static final int MAX_SEQUENCE_LENGTH = 4;
+
+    // Константы SWAR: байт 0x01, 0x20, 0x60 и старший бит в каждом из 8 байт long
+    private static final long ONES = 0x0101010101010101L;
+    private static final long SPACES = 0x2020202020202020L;
+    private static final long BELOW_SPACE = 0x6060606060606060L;
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    private final long[] bmpFrequency = new long[PLANE_SIZE];
+    private final long[][] supplementaryFrequency = new long[16][];
+
+    private long lineCount;
+    private long wordCount;
+    private long lineChars;
+
+    // Состояние текущей строки
+    private boolean lineOpen;
+    private boolean skipLineFeed;
+    private boolean seenVisible;
+    private boolean inWord;
+    private boolean wordHasVisible;
+    private long hiddenWords;
+
+    // Незавершённая последовательность UTF-8 с конца предыдущего куска
+    private final byte[] carry = new byte[MAX_SEQUENCE_LENGTH];
+    private final ByteBuffer carryBuffer = ByteBuffer.wrap(carry);
+    private int carryLength;
+
+    // Сводка частых слов и текущий токен; null, если сводка не нужна
+    private final int topWordCapacity;
+    private SpaceSavingSummary topWords;
+    private final char[] token;
+    private int tokenLength;
+
+    // Оценки числа различных слов и строк и хеш текущей строки; null, если оценки не нужны
+    private final int distinctPrecision;
+    private HyperLogLog distinctWords;
+    private HyperLogLog distinctLines;
+    private long lineHash = SpaceSavingSummary.FNV_OFFSET;
+
+    public TextAnalysisEngine() {
+        this(0, 0);
+    }
+
+    /**
+     * @param topWordCapacity сколько слов отслеживает сводка частых слов; 0 — сводка не ведётся
+     */
+    public TextAnalysisEngine(int topWordCapacity) {
+        this(topWordCapacity, 0);
+    }
+
+    /**
+     * @param topWordCapacity   сколько слов отслеживает сводка частых слов; 0 — сводка не ведётся
+     * @param distinctPrecision точность HyperLogLog для различных слов и строк; 0 — оценки не ведутся
+     */
+    public TextAnalysisEngine(int topWordCapacity, int distinctPrecision) {
+        if (topWordCapacity < 0) {
+            throw new IllegalArgumentException("Ёмкость сводки слов не может быть отрицательной: " + topWordCapacity);
+        }
+        this.topWordCapacity = topWordCapacity;
+        this.topWords = topWordCapacity > 0 ? new SpaceSavingSummary(topWordCapacity) : null;
+        this.distinctPrecision = distinctPrecision;
+        this.distinctWords = distinctPrecision != 0 ? new HyperLogLog(distinctPrecision) : null;
+        this.distinctLines = distinctPrecision != 0 ? new HyperLogLog(distinctPrecision) : null;
+        this.token = topWords != null || distinctWords != null ? new char[MAX_TOKEN_LENGTH] : null;
+    }
+
+    /**
+     * Обрабатывает байты от position до limit; после вызова position равен limit
+     */
+    public void update(ByteBuffer bytes) {
+        int position = bytes.position();
+        int limit = bytes.limit();
+
+        if (carryLength > 0) {
+            int added = Math.min(limit - position, MAX_SEQUENCE_LENGTH - carryLength);
+            bytes.get(position, carry, carryLength, added);
+            int consumed = decode(carryBuffer, 0, carryLength + added);
+            if (consumed == 0) {
+                carryLength += added;
+                bytes.position(limit);
+                return;
+            }
+            // Перенесённые байты — корректное начало последовательности, поэтому декодер забирает их все
+            position += consumed - carryLength;
+            carryLength = 0;
+        }
+
+        boolean asciiFastPath = token == null && distinctLines == null;
+        boolean bigEndian = bytes.order() == ByteOrder.BIG_ENDIAN;
+        while (position < limit) {
+            if (asciiFastPath) {
+                position = scanAscii(bytes, position, limit, bigEndian);
+                if (position == limit) {
+                    break;
+                }
+            }
+
+            int b = bytes.get(position);
+            if (b >= 0) {
+                accept(b);
+                position++;
+                continue;
+            }
+
+            int consumed = decode(bytes, position, limit);
+            if (consumed == 0) {
+                carryLength = limit - position;
+                bytes.get(position, carry, 0, carryLength);
+                break;
+            }
+            position += consumed;
+        }
+        bytes.position(limit);
+    }
+
+    /**
+     * Завершает данные: незавершённая последовательность UTF-8 становится одним U+FFFD,
+     * строка без перевода строки в конце засчитывается
+     */
+    public void finish() {
+        if (carryLength > 0) {
+            accept(REPLACEMENT);
+            carryLength = 0;
+        }
+        if (lineOpen) {
+            endLine();
+        }
+        skipLineFeed = false;
+    }
+
+    /**
+     * Добавляет статистику другого движка. Оба должны быть завершены через {@link #finish()},
+     * а текст other — продолжать текст этого движка с начала строки.
+     */
+    public void merge(TextAnalysisEngine other) {
+        addCounts(other);
+        if (topWords != null && other.topWords != null) {
+            topWords = topWords.merge(other.topWords);
+        }
+        if (distinctWords != null && other.distinctWords != null) {
+            distinctWords = distinctWords.merge(other.distinctWords);
+            distinctLines = distinctLines.merge(other.distinctLines);
+        }
+    }
+
+    private void addCounts(TextAnalysisEngine other) {
+        lineCount += other.lineCount;
+        wordCount += other.wordCount;
+        lineChars += other.lineChars;
+
+        for (int i = 0; i < PLANE_SIZE; i++) {
+            bmpFrequency[i] += other.bmpFrequency[i];
+        }
+        for (int plane = 0; plane < supplementaryFrequency.length; plane++) {
+            long[] otherPage = other.supplementaryFrequency[plane];
+            if (otherPage != null) {
+                long[] page = supplementaryPage(plane);
+                for (int i = 0; i < PLANE_SIZE; i++) {
+                    page[i] += otherPage[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Сбрасывает статистику и состояние, чтобы переиспользовать массивы частот
+     */
+    public void reset() {
+        Arrays.fill(bmpFrequency, 0);
+        for (long[] page : supplementaryFrequency) {
+            if (page != null) {
+                Arrays.fill(page, 0);
+            }
+        }
+        lineCount = 0;
+        wordCount = 0;
+        lineChars = 0;
+        lineOpen = false;
+        skipLineFeed = false;
+        seenVisible = false;
+        inWord = false;
+        wordHasVisible = false;
+        hiddenWords = 0;
+        carryLength = 0;
+        tokenLength = 0;
+        if (topWords != null) {
+            topWords = new SpaceSavingSummary(topWordCapacity);
+        }
+        if (distinctWords != null) {
+            distinctWords = new HyperLogLog(distinctPrecision);
+            distinctLines = new HyperLogLog(distinctPrecision);
+        }
+        lineHash = SpaceSavingSummary.FNV_OFFSET;
+    }
+
+    /**
+     * Версия формата {@link #writeState}: увеличивается при каждом изменении набора или порядка полей,
+     * чтобы сохранённое старой версией состояние отвергалось, а не читалось со сдвигом
+     */
+    static final int STATE_VERSION = 2;
+
+    /**
+     * Сохраняет статистику и состояние незаконченной строки; частоты пишутся только ненулевые.
+     * Версия формата сюда не пишется, её сохраняет владелец состояния.
+     */
+    void writeState(DataOutput out) throws IOException {
+        out.writeLong(lineCount);
+        out.writeLong(wordCount);
+        out.writeLong(lineChars);
+        out.writeBoolean(lineOpen);
+        out.writeBoolean(skipLineFeed);
+        out.writeBoolean(seenVisible);
+        out.writeBoolean(inWord);
+        out.writeBoolean(wordHasVisible);
+        out.writeLong(hiddenWords);
+        out.writeByte(carryLength);
+        out.write(carry, 0, carryLength);
+
+        out.writeBoolean(topWords != null);
+        if (topWords != null) {
+            topWords.write(out);
+        }
+        out.writeByte(distinctPrecision);
+        if (distinctWords != null) {
+            distinctWords.write(out);
+            distinctLines.write(out);
+            out.writeLong(lineHash);
+        }
+        if (token != null) {
+            out.writeShort(tokenLength);
+            for (int i = 0; i < tokenLength; i++) {
+                out.writeChar(token[i]);
+            }
+        }
+
+        int distinct = 0;
+        for (int codePoint = 0; codePoint <= Character.MAX_CODE_POINT; codePoint++) {
+            if (getFrequency(codePoint) != 0) {
+                distinct++;
+            }
+        }
+        out.writeInt(distinct);
+        for (int codePoint = 0; codePoint <= Character.MAX_CODE_POINT; codePoint++) {
+            long count = getFrequency(codePoint);
+            if (count != 0) {
+                out.writeInt(codePoint);
+                out.writeLong(count);
+            }
+        }
+    }
+
+    static TextAnalysisEngine readState(DataInput in) throws IOException {
+        long lineCount = in.readLong();
+        long wordCount = in.readLong();
+        long lineChars = in.readLong();
+        boolean lineOpen = in.readBoolean();
+        boolean skipLineFeed = in.readBoolean();
+        boolean seenVisible = in.readBoolean();
+        boolean inWord = in.readBoolean();
+        boolean wordHasVisible = in.readBoolean();
+        long hiddenWords = in.readLong();
+        int carryLength = in.readByte();
+        if (carryLength < 0 || carryLength >= MAX_SEQUENCE_LENGTH) {
+            throw new IOException("Неверная длина незавершённой последовательности: " + carryLength);
+        }
+        byte[] carry = new byte[carryLength];
+        in.readFully(carry);
+
+        SpaceSavingSummary topWords = in.readBoolean() ? SpaceSavingSummary.read(in) : null;
+        int distinctPrecision = in.readByte();
+        TextAnalysisEngine engine;
+        try {
+            engine = new TextAnalysisEngine(topWords == null ? 0 : topWords.getCapacity(), distinctPrecision);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Неверная точность оценки различных элементов: " + distinctPrecision, e);
+        }
+        if (topWords != null) {
+            engine.topWords = topWords;
+        }
+        if (engine.distinctWords != null) {
+            engine.distinctWords = HyperLogLog.read(in);
+            engine.distinctLines = HyperLogLog.read(in);
+            engine.lineHash = in.readLong();
+        }
+        if (engine.token != null) {
+            engine.tokenLength = in.readShort();
+            if (engine.tokenLength < 0 || engine.tokenLength > MAX_TOKEN_LENGTH) {
+                throw new IOException("Неверная длина токена: " + engine.tokenLength);
+            }
+            for (int i = 0; i < engine.tokenLength; i++) {
+                engine.token[i] = in.readChar();
+            }
+        }
+
+        engine.lineCount = lineCount;
+        engine.wordCount = wordCount;
+        engine.lineChars = lineChars;
+        engine.lineOpen = lineOpen;
+        engine.skipLineFeed = skipLineFeed;
+        engine.seenVisible = seenVisible;
+        engine.inWord = inWord;
+        engine.wordHasVisible = wordHasVisible;
+        engine.hiddenWords = hiddenWords;
+        engine.carryLength = carryLength;
+        System.arraycopy(carry, 0, engine.carry, 0, carryLength);
+
+        int distinct = in.readInt();
+        for (int i = 0; i < distinct; i++) {
+            int codePoint = in.readInt();
+            if (codePoint < 0 || codePoint > Character.MAX_CODE_POINT) {
+                throw new IOException("Неверная кодовая точка в состоянии: " + codePoint);
+            }
+            long count = in.readLong();
+            if (codePoint < PLANE_SIZE) {
+                engine.bmpFrequency[codePoint] = count;
+            } else {
+                engine.supplementaryPage((codePoint >> 16) - 1)[codePoint & 0xFFFF] = count;
+            }
+        }
+        return engine;
+    }
+
+    public long getLineCount() { return lineCount; }
+    public long getWordCount() { return wordCount; }
+
+    /**
+     * Символы в единицах UTF-16: содержимое строк плюс по одному переводу строки между соседними строками
+     */
+    public long getCharCount() {
+        return lineCount > 0 ? lineChars + lineCount - 1 : 0;
+    }
+
+    /**
+     * Сколько раз кодовая точка встретилась в содержимом строк
+     */
+    public long getFrequency(int codePoint) {
+        if (codePoint < 0 || codePoint > Character.MAX_CODE_POINT) {
+            throw new IllegalArgumentException("Неверная кодовая точка: " + codePoint);
+        }
+        if (codePoint < PLANE_SIZE) {
+            return bmpFrequency[codePoint];
+        }
+        long[] page = supplementaryFrequency[(codePoint >> 16) - 1];
+        return page == null ? 0 : page[codePoint & 0xFFFF];
+    }
+
+    /**
+     * Собирает результат в формате {@link TextFileAnalyzer.AnalysisResult}: частоты по символам UTF-16,
+     * символ вне BMP засчитывается обоим своим суррогатам
+     */
+    public TextFileAnalyzer.AnalysisResult toResult(long fileSize) {
+        // Копируется только диапазон суррогатов: к нему добавляются символы вне BMP
+        long[] surrogateFrequency = Arrays.copyOfRange(bmpFrequency,
+                Character.MIN_SURROGATE, Character.MAX_SURROGATE + 1);
+        for (int plane = 0; plane < supplementaryFrequency.length; plane++) {
+            long[] page = supplementaryFrequency[plane];
+            if (page == null) {
+                continue;
+            }
+            for (int i = 0; i < PLANE_SIZE; i++) {
+                if (page[i] != 0) {
+                    int codePoint = ((plane + 1) << 16) | i;
+                    surrogateFrequency[Character.highSurrogate(codePoint) - Character.MIN_SURROGATE] += page[i];
+                    surrogateFrequency[Character.lowSurrogate(codePoint) - Character.MIN_SURROGATE] += page[i];
+                }
+            }
+        }
+
+        Map<Character, Integer> frequency = new HashMap<>();
+        for (int c = 0; c < PLANE_SIZE; c++) {
+            long count = Character.isSurrogate((char) c)
+                    ? surrogateFrequency[c - Character.MIN_SURROGATE]
+                    : bmpFrequency[c];
+            if (count != 0) {
+                frequency.put((char) c, (int) Math.min(count, Integer.MAX_VALUE));
+            }
+        }
+        return new TextFileAnalyzer.AnalysisResult(lineCount, wordCount, getCharCount(), frequency, fileSize,
+                topWords == null ? null : topWords.copy(),
+                distinctWords == null ? null : distinctWords.copy(),
+                distinctLines == null ? null : distinctLines.copy());
+    }
+
+    /**
+     * Результат так, как если бы данные закончились сейчас: незавершённая последовательность и незаконченная
+     * строка засчитываются как в {@link #finish()}, но состояние движка после вызова прежнее и данные
+     * можно подавать дальше. Массивы частот не копируются, копируются только сводка и оценки.
+     */
+    public TextFileAnalyzer.AnalysisResult toFinishedResult(long fileSize) {
+        if (carryLength == 0 && !lineOpen) {
+            return toResult(fileSize);
+        }
+
+        long savedLineCount = lineCount;
+        long savedWordCount = wordCount;
+        long savedLineChars = lineChars;
+        long savedReplacements = bmpFrequency[REPLACEMENT];
+        boolean savedLineOpen = lineOpen;
+        boolean savedSkipLineFeed = skipLineFeed;
+        boolean savedSeenVisible = seenVisible;
+        boolean savedInWord = inWord;
+        boolean savedWordHasVisible = wordHasVisible;
+        long savedHiddenWords = hiddenWords;
+        int savedCarryLength = carryLength;
+        int savedTokenLength = tokenLength;
+        long savedLineHash = lineHash;
+        SpaceSavingSummary savedTopWords = topWords;
+        HyperLogLog savedDistinctWords = distinctWords;
+        HyperLogLog savedDistinctLines = distinctLines;
+
+        // finish() дописывает последнее слово и строку в сводку и оценки, поэтому он работает с их копиями
+        if (topWords != null) {
+            topWords = topWords.copy();
+        }
+        if (distinctWords != null) {
+            distinctWords = distinctWords.copy();
+            distinctLines = distinctLines.copy();
+        }
+        try {
+            finish();
+            return toResult(fileSize);
+        } finally {
+            lineCount = savedLineCount;
+            wordCount = savedWordCount;
+            lineChars = savedLineChars;
+            bmpFrequency[REPLACEMENT] = savedReplacements;
+            lineOpen = savedLineOpen;
+            skipLineFeed = savedSkipLineFeed;
+            seenVisible = savedSeenVisible;
+            inWord = savedInWord;
+            wordHasVisible = savedWordHasVisible;
+            hiddenWords = savedHiddenWords;
+            carryLength = savedCarryLength;
+            // Символы токена до savedTokenLength finish() не перезаписывает
+            tokenLength = savedTokenLength;
+            lineHash = savedLineHash;
+            topWords = savedTopWords;
+            distinctWords = savedDistinctWords;
+            distinctLines = savedDistinctLines;
+        }
+    }
+
+    /**
+     * Декодирует многобайтовую последовательность, начинающуюся в position
+     * @return сколько байт потреблено или 0, если последовательность корректна, но обрезана концом буфера
+     */
+    private int decode(ByteBuffer bytes, int position, int limit) {
+        int b1 = bytes.get(position);
+        int remaining = limit - position;
+
+        if ((b1 >> 5) == -2 && (b1 & 0x1e) != 0) {
+            // 110xxxxx 10xxxxxx, [C2..DF] [80..BF]
+            if (remaining < 2) {
+                return 0;
+            }
+            int b2 = bytes.get(position + 1);
+            if (isNotContinuation(b2)) {
+                return malformed(1);
+            }
+            accept(((b1 & 0x1f) << 6) | (b2 & 0x3f));
+            return 2;
+        }
+
+        if ((b1 >> 4) == -2) {
+            // 1110xxxx 10xxxxxx 10xxxxxx, [E0] [A0..BF] [80..BF] или [E1..EF] [80..BF] [80..BF]
+            if (remaining < 3) {
+                if (remaining > 1 && isMalformed3(b1, bytes.get(position + 1))) {
+                    return malformed(1);
+                }
+                return 0;
+            }
+            int b2 = bytes.get(position + 1);
+            int b3 = bytes.get(position + 2);
+            if (isMalformed3(b1, b2)) {
+                return malformed(1);
+            }
+            if (isNotContinuation(b3)) {
+                return malformed(2);
+            }
+            int c = ((b1 & 0x0f) << 12) | ((b2 & 0x3f) << 6) | (b3 & 0x3f);
+            if (Character.isSurrogate((char) c)) {
+                return malformed(3);
+            }
+            accept(c);
+            return 3;
+        }
+
+        if ((b1 >> 3) == -2) {
+            // 11110xxx 10xxxxxx 10xxxxxx 10xxxxxx, [F0] [90..BF] или [F1..F3] [80..BF] или [F4] [80..8F]
+            int u1 = b1 & 0xff;
+            if (remaining < 4) {
+                if (u1 > 0xf4 || remaining > 1 && isMalformed4(u1, bytes.get(position + 1) & 0xff)) {
+                    return malformed(1);
+                }
+                if (remaining > 2 && isNotContinuation(bytes.get(position + 2))) {
+                    return malformed(2);
+                }
+                return 0;
+            }
+            int b2 = bytes.get(position + 1);
+            int b3 = bytes.get(position + 2);
+            int b4 = bytes.get(position + 3);
+            int codePoint = ((b1 & 0x07) << 18) | ((b2 & 0x3f) << 12) | ((b3 & 0x3f) << 6) | (b4 & 0x3f);
+            if (isNotContinuation(b2) || isNotContinuation(b3) || isNotContinuation(b4)
+                    || !Character.isSupplementaryCodePoint(codePoint)) {
+                // Длина заменяемого фрагмента — как в sun.nio.cs.UTF_8
+                if (u1 > 0xf4 || isMalformed4(u1, b2 & 0xff)) {
+                    return malformed(1);
+                }
+                return malformed(isNotContinuation(b3) ? 2 : 3);
+            }
+            accept(codePoint);
+            return 4;
+        }
+
+        return malformed(1);
+    }
+
+    private static boolean isNotContinuation(int b) {
+        return (b & 0xc0) != 0x80;
+    }
+
+    private static boolean isMalformed3(int b1, int b2) {
+        return (b1 == (byte) 0xe0 && (b2 & 0xe0) == 0x80) || isNotContinuation(b2);
+    }
+
+    private static boolean isMalformed4(int u1, int u2) {
+        return (u1 == 0xf0 && (u2 < 0x90 || u2 > 0xbf))
+                || (u1 == 0xf4 && (u2 & 0xf0) != 0x80)
+                || isNotContinuation(u2);
+    }
+
+    private int malformed(int length) {
+        accept(REPLACEMENT);
+        return length;
+    }
+
+    /**
+     * Обрабатывает по 8 байт печатные ASCII-символы и пробелы, начиная с position.
+     * Внутри такого отрезка слово заканчивается ровно там, где за печатным символом идёт пробел,
+     * поэтому число законченных слов — число единиц в (printable << 8) & spaces.
+     * @return позиция первого необработанного байта: управляющего символа, не ASCII или хвоста короче 8 байт
+     */
+    private int scanAscii(ByteBuffer bytes, int position, int limit, boolean bigEndian) {
+        // Невидимое слово из управляющих символов требует полного автомата, пока не встретится печатный символ
+        if (inWord ? !wordHasVisible : hiddenWords != 0) {
+            return position;
+        }
+
+        while (limit - position >= Long.BYTES) {
+            long word = bytes.getLong(position);
+            if (bigEndian) {
+                word = Long.reverseBytes(word);
+            }
+
+            // Старший бит байта: не ASCII, меньше 0x20 или 0x7F. Переносы идут только вверх от первого
+            // такого байта, поэтому младший установленный бит точен
+            long rejected = (word | ~(word + BELOW_SPACE) | (word + ONES)) & HIGH_BITS;
+            int length = rejected == 0 ? Long.BYTES : Long.numberOfTrailingZeros(rejected) >>> 3;
+            if (length == 0) {
+                return position;
+            }
+            long mask = length == Long.BYTES ? -1L : (1L << (length * 8)) - 1;
+
+            long spaceBytes = word ^ SPACES;
+            long spaces = ~(((spaceBytes & LOW_BITS) + LOW_BITS) | spaceBytes | LOW_BITS) & mask;
+            long printable = ~spaces & HIGH_BITS & mask;
+            long previousPrintable = (printable << 8) | (inWord ? 0x80L : 0);
+            wordCount += Long.bitCount(previousPrintable & spaces);
+
+            inWord = (printable >>> (length * 8 - 1)) != 0;
+            wordHasVisible = inWord;
+            seenVisible |= printable != 0;
+            lineOpen = true;
+            skipLineFeed = false;
+            lineChars += length;
+            for (int i = 0; i < length; i++) {
+                bmpFrequency[(int) (word >>> (i * 8)) & 0x7F]++;
+            }
+
+            position += length;
+            if (length < Long.BYTES) {
+                return position;
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Учитывает декодированную кодовую точку
+     */
+    private void accept(int codePoint) {
+        if (skipLineFeed) {
+            skipLineFeed = false;
+            if (codePoint == '\n') {
+                return;
+            }
+        }
+        if (codePoint == '\n' || codePoint == '\r') {
+            skipLineFeed = codePoint == '\r';
+            endLine();
+            return;
+        }
+
+        lineOpen = true;
+        if (codePoint < PLANE_SIZE) {
+            bmpFrequency[codePoint]++;
+            lineChars++;
+        } else {
+            supplementaryPage((codePoint >> 16) - 1)[codePoint & 0xFFFF]++;
+            lineChars += 2;
+        }
+        if (distinctLines != null) {
+            hashLineChars(codePoint);
+        }
+
+        if (codePoint == ' ' || codePoint == '\t' || codePoint == 0x0B || codePoint == '\f') {
+            if (inWord) {
+                endWord();
+            }
+            return;
+        }
+
+        inWord = true;
+        if (token != null) {
+            appendToToken(codePoint);
+        }
+        if (codePoint > ' ') {
+            // Невидимые слова между видимыми переживают trim()
+            seenVisible = true;
+            wordHasVisible = true;
+            wordCount += hiddenWords;
+            hiddenWords = 0;
+        }
+    }
+
+    /**
+     * Слово только из управляющих символов (<= ' ') считается, лишь если оно не попадает под trim():
+     * видимые символы есть и до него, и после
+     */
+    private void endWord() {
+        if (wordHasVisible) {
+            wordCount++;
+            if (token != null) {
+                addToken();
+            }
+        } else if (seenVisible) {
+            hiddenWords++;
+        }
+        inWord = false;
+        wordHasVisible = false;
+        tokenLength = 0;
+    }
+
+    private void appendToToken(int codePoint) {
+        if (codePoint < PLANE_SIZE) {
+            if (tokenLength < MAX_TOKEN_LENGTH) {
+                token[tokenLength++] = (char) codePoint;
+            }
+        } else if (tokenLength + 2 <= MAX_TOKEN_LENGTH) {
+            token[tokenLength++] = Character.highSurrogate(codePoint);
+            token[tokenLength++] = Character.lowSurrogate(codePoint);
+        }
+    }
+
+    private void hashLineChars(int codePoint) {
+        if (codePoint < PLANE_SIZE) {
+            lineHash = (lineHash ^ codePoint) * SpaceSavingSummary.FNV_PRIME;
+        } else {
+            lineHash = (lineHash ^ Character.highSurrogate(codePoint)) * SpaceSavingSummary.FNV_PRIME;
+            lineHash = (lineHash ^ Character.lowSurrogate(codePoint)) * SpaceSavingSummary.FNV_PRIME;
+        }
+    }
+
+    /**
+     * Учитывает токен без управляющих символов по краям, как их отрезал бы trim()
+     */
+    private void addToken() {
+        int start = 0;
+        int end = tokenLength;
+        while (start < end && token[start] <= ' ') {
+            start++;
+        }
+        while (end > start && token[end - 1] <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return;
+        }
+        if (topWords != null) {
+            topWords.add(token, start, end - start);
+        }
+        if (distinctWords != null) {
+            distinctWords.add(SpaceSavingSummary.hash(token, start, end - start));
+        }
+    }
+
+    private void endLine() {
+        if (inWord) {
+            endWord();
+        }
+        hiddenWords = 0;
+        seenVisible = false;
+        lineOpen = false;
+        lineCount++;
+        if (distinctLines != null) {
+            // Хеш совпадает с SpaceSavingSummary.hash от строки, которую вернул бы readLine()
+            distinctLines.add(SpaceSavingSummary.mix(lineHash));
+            lineHash = SpaceSavingSummary.FNV_OFFSET;
+        }
+    }
+
+    private long[] supplementaryPage(int plane) {
+        long[] page = supplementaryFrequency[plane];
+        if (page == null) {
+            page = new long[PLANE_SIZE];
+            supplementaryFrequency[plane] = page;
+        }
+        return page;
+    }
+}
@@ -0,0 +1,210 @@
+package javaIO;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+class TextAnalysisEngineTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testMatchesReaderOnValidText() {
+        String text = "Hello world!\r\n  two\twords  \rПривет, мир 😀\n\n\u0001 x \u0001\n\u0001\u0002\nlast";
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+
+        TextAnalysisEngine engine = analyze(bytes, bytes.length);
+
+        assertResultEquals(readWithReader(bytes), engine.toResult(bytes.length));
+        assertEquals(7, engine.getLineCount());
+        assertEquals(1, engine.getFrequency(0x1F600));
+        assertEquals(3, engine.getFrequency('w'));
+    }
+
+    @Test
+    void testMatchesReaderOnRandomBytes() throws IOException {
+        Random random = new Random(11);
+        byte[][] fragments = {
+                "word".getBytes(StandardCharsets.UTF_8), " ".getBytes(StandardCharsets.UTF_8),
+                "\r\n".getBytes(StandardCharsets.UTF_8), "\n".getBytes(StandardCharsets.UTF_8),
+                "\r".getBytes(StandardCharsets.UTF_8), "Ж".getBytes(StandardCharsets.UTF_8),
+                "€".getBytes(StandardCharsets.UTF_8), "😀".getBytes(StandardCharsets.UTF_8),
+                {(byte) 0xE2, (byte) 0x82}, {(byte) 0xF0, (byte) 0x9F}, {(byte) 0xF0, (byte) 0x80, (byte) 0x80},
+                {(byte) 0xED, (byte) 0xA0, (byte) 0x80}, {(byte) 0xC0}, {(byte) 0xF5}, {(byte) 0xBF}, {(byte) 0x01}
+        };
+
+        for (int round = 0; round < 200; round++) {
+            ByteArrayOutputStream text = new ByteArrayOutputStream();
+            int length = random.nextInt(60);
+            for (int i = 0; i < length; i++) {
+                text.writeBytes(random.nextInt(4) == 0
+                        ? new byte[] {(byte) random.nextInt(256)}
+                        : fragments[random.nextInt(fragments.length)]);
+            }
+            byte[] bytes = text.toByteArray();
+
+            TextFileAnalyzer.AnalysisResult expected = readWithReader(bytes);
+            for (int pieceSize : new int[] {1, 2, 3, 5, bytes.length + 1}) {
+                assertResultEquals(expected, analyze(bytes, pieceSize).toResult(bytes.length));
+            }
+        }
+    }
+
+    @Test
+    void testAsciiFastPathMatchesScalarPath() {
+        Random random = new Random(23);
+        String[] fragments = {"word", "a", "longerword", " ", "  ", "        ", "\t", "\n", "\r\n", "\r",
+                "\u0001", "\u007F", "~!", "Ж", "😀", "x\u0001y"};
+
+        for (int round = 0; round < 300; round++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(80);
+            for (int i = 0; i < length; i++) {
+                // В основном ASCII, чтобы длинные отрезки шли через SWAR
+                text.append(random.nextInt(4) == 0 ? fragments[random.nextInt(fragments.length)] : fragments[random.nextInt(6)]);
+            }
+            byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+            TextFileAnalyzer.AnalysisResult expected = readWithReader(bytes);
+
+            for (int pieceSize : new int[] {7, 8, 13, 64, bytes.length + 1}) {
+                for (ByteOrder order : new ByteOrder[] {ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+                    // Сводка слов включает скалярный путь, без неё работает SWAR
+                    TextAnalysisEngine fast = new TextAnalysisEngine();
+                    TextAnalysisEngine scalar = new TextAnalysisEngine(1);
+                    ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length).order(order);
+                    direct.put(bytes).flip();
+                    for (int offset = 0; offset < bytes.length; offset += pieceSize) {
+                        int end = Math.min(offset + pieceSize, bytes.length);
+                        fast.update(direct.duplicate().order(order).limit(end).position(offset));
+                        scalar.update(ByteBuffer.wrap(bytes, offset, end - offset));
+                    }
+                    fast.finish();
+                    scalar.finish();
+
+                    assertResultEquals(expected, fast.toResult(bytes.length));
+                    assertResultEquals(expected, scalar.toResult(bytes.length));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testFinishedResultLeavesStateIntact() {
+        byte[] head = "alpha beta\nbeta gam".getBytes(StandardCharsets.UTF_8);
+        byte[] euro = "€".getBytes(StandardCharsets.UTF_8);
+        byte[] tail = "ma beta\n".getBytes(StandardCharsets.UTF_8);
+        // Кусок обрывается посреди слова и посреди символа UTF-8
+        byte[] first = new byte[head.length + 1];
+        System.arraycopy(head, 0, first, 0, head.length);
+        first[head.length] = euro[0];
+        byte[] second = new byte[2 + tail.length];
+        second[0] = euro[1];
+        second[1] = euro[2];
+        System.arraycopy(tail, 0, second, 2, tail.length);
+
+        TextAnalysisEngine live = new TextAnalysisEngine(16, 10);
+        live.update(ByteBuffer.wrap(first));
+        TextFileAnalyzer.AnalysisResult preview = live.toFinishedResult(first.length);
+
+        TextAnalysisEngine finished = new TextAnalysisEngine(16, 10);
+        finished.update(ByteBuffer.wrap(first));
+        finished.finish();
+        TextFileAnalyzer.AnalysisResult expectedPreview = finished.toResult(first.length);
+        assertResultEquals(expectedPreview, preview);
+        assertEquals(topWords(expectedPreview), topWords(preview));
+        assertEquals(expectedPreview.getDistinctLines().estimate(), preview.getDistinctLines().estimate());
+
+        live.update(ByteBuffer.wrap(second));
+        live.finish();
+        TextAnalysisEngine whole = new TextAnalysisEngine(16, 10);
+        whole.update(ByteBuffer.wrap(first));
+        whole.update(ByteBuffer.wrap(second));
+        whole.finish();
+        assertResultEquals(whole.toResult(0), live.toResult(0));
+        assertEquals(topWords(whole.toResult(0)), topWords(live.toResult(0)));
+        assertEquals(2, live.toResult(0).getDistinctLines().estimate());
+        assertEquals(5, live.getWordCount());
+    }
+
+    @Test
+    void testAnalyzeFileUsesEngine() throws IOException {
+        byte[] bytes = new byte[3 * TextFileAnalyzer.READ_BUFFER_SIZE + 17];
+        Random random = new Random(5);
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (random.nextInt(8) == 0 ? '\n' : random.nextInt(256));
+        }
+        Path file = tempDir.resolve("random.bin");
+        Files.write(file, bytes);
+
+        TextFileAnalyzer analyzer = new TextFileAnalyzer();
+        assertResultEquals(readWithReader(bytes), analyzer.analyzeFile(file.toString()));
+        assertResultEquals(readWithReader(bytes), analyzer.analyzeFileParallel(file.toString(), 3, 1000));
+    }
+
+    private static List<String> topWords(TextFileAnalyzer.AnalysisResult result) {
+        return result.getTopWords(16).stream().map(SpaceSavingSummary.Entry::getWord).toList();
+    }
+
+    private static TextAnalysisEngine analyze(byte[] bytes, int pieceSize) {
+        TextAnalysisEngine engine = new TextAnalysisEngine();
+        for (int offset = 0; offset < bytes.length; offset += pieceSize) {
+            engine.update(ByteBuffer.wrap(bytes, offset, Math.min(pieceSize, bytes.length - offset)));
+        }
+        engine.finish();
+        return engine;
+    }
+
+    /**
+     * Эталон: построчное чтение через BufferedReader, как в исходной реализации analyzeFile
+     */
+    private static TextFileAnalyzer.AnalysisResult readWithReader(byte[] bytes) {
+        long lineCount = 0;
+        long wordCount = 0;
+        long charCount = 0;
+        Map<Character, Integer> charFrequency = new HashMap<>();
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineCount++;
+                charCount += line.length() + 1;
+                if (!line.trim().isEmpty()) {
+                    wordCount += line.trim().split("\\s+").length;
+                }
+                for (char c : line.toCharArray()) {
+                    charFrequency.merge(c, 1, Integer::sum);
+                }
+            }
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+
+        return new TextFileAnalyzer.AnalysisResult(lineCount, wordCount, Math.max(0, charCount - 1),
+                charFrequency, bytes.length);
+    }
+
+    private static void assertResultEquals(TextFileAnalyzer.AnalysisResult expected,
+                                           TextFileAnalyzer.AnalysisResult actual) {
+        assertEquals(expected.getLineCount(), actual.getLineCount());
+        assertEquals(expected.getWordCount(), actual.getWordCount());
+        assertEquals(expected.getCharCount(), actual.getCharCount());
+        assertEquals(expected.getCharFrequency(), actual.getCharFrequency());
+    }
+}
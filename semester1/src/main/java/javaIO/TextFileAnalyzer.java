@@ -1,28 +1,112 @@
 package javaIO;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
 
 public class TextFileAnalyzer {
 
+    static final long DEFAULT_CHUNK_SIZE = 16 << 20;
+    static final int READ_BUFFER_SIZE = 256 * 1024;
+
+    private static final byte[] LINE_FEED = {'\n'};
+    private static final int TOP_WORDS_IN_REPORT = 50;
+
+    private final int topWordCapacity;
+    private final int distinctPrecision;
+    private final DirectBufferPool bufferPool;
+
+    public TextFileAnalyzer() {
+        this(0, 0);
+    }
+
+    /**
+     * @param bufferPool пул direct-буферов, из которого берутся буферы чтения
+     */
+    public TextFileAnalyzer(DirectBufferPool bufferPool) {
+        this(0, 0, bufferPool);
+    }
+
+    /**
+     * @param topWordCapacity сколько слов отслеживает сводка частых слов (Space-Saving);
+     *                        0 — сводка не ведётся. Память на сводку не зависит от размера файлов.
+     */
+    public TextFileAnalyzer(int topWordCapacity) {
+        this(topWordCapacity, 0);
+    }
+
+    /**
+     * @param distinctPrecision точность HyperLogLog для оценки числа различных слов и строк
+     *                          (от {@link HyperLogLog#MIN_PRECISION} до {@link HyperLogLog#MAX_PRECISION});
+     *                          0 — оценки не ведутся
+     */
+    public TextFileAnalyzer(int topWordCapacity, int distinctPrecision) {
+        this(topWordCapacity, distinctPrecision, DirectBufferPool.shared());
+    }
+
+    public TextFileAnalyzer(int topWordCapacity, int distinctPrecision, DirectBufferPool bufferPool) {
+        if (topWordCapacity < 0) {
+            throw new IllegalArgumentException("Ёмкость сводки слов не может быть отрицательной: " + topWordCapacity);
+        }
+        if (distinctPrecision != 0
+                && (distinctPrecision < HyperLogLog.MIN_PRECISION || distinctPrecision > HyperLogLog.MAX_PRECISION)) {
+            throw new IllegalArgumentException("Недопустимая точность HyperLogLog: " + distinctPrecision);
+        }
+        this.topWordCapacity = topWordCapacity;
+        this.distinctPrecision = distinctPrecision;
+        this.bufferPool = bufferPool;
+    }
+
+    public int getTopWordCapacity() { return topWordCapacity; }
+    public int getDistinctPrecision() { return distinctPrecision; }
+
     public static class AnalysisResult {
         private final long lineCount;
         private final long wordCount;
         private final long charCount;
         private final Map<Character, Integer> charFrequency;
         private final long fileSize;
+        private final SpaceSavingSummary wordSummary;
+        private final HyperLogLog distinctWords;
+        private final HyperLogLog distinctLines;
 
         public AnalysisResult(long lineCount, long wordCount, long charCount,
                               Map<Character, Integer> charFrequency, long fileSize) {
+            this(lineCount, wordCount, charCount, charFrequency, fileSize, null);
+        }
+
+        /**
+         * @param wordSummary сводка частых слов или null, если она не велась
+         */
+        public AnalysisResult(long lineCount, long wordCount, long charCount,
+                              Map<Character, Integer> charFrequency, long fileSize, SpaceSavingSummary wordSummary) {
+            this(lineCount, wordCount, charCount, charFrequency, fileSize, wordSummary, null, null);
+        }
+
+        /**
+         * @param distinctWords оценка числа различных слов или null, если она не велась
+         * @param distinctLines оценка числа различных строк или null, если она не велась
+         */
+        public AnalysisResult(long lineCount, long wordCount, long charCount,
+                              Map<Character, Integer> charFrequency, long fileSize, SpaceSavingSummary wordSummary,
+                              HyperLogLog distinctWords, HyperLogLog distinctLines) {
             this.lineCount = lineCount;
             this.wordCount = wordCount;
             this.charCount = charCount;
             this.charFrequency = charFrequency;
             this.fileSize = fileSize;
+            this.wordSummary = wordSummary;
+            this.distinctWords = distinctWords;
+            this.distinctLines = distinctLines;
         }
 
         public long getLineCount() { return lineCount; }
@@ -30,6 +114,84 @@ public class TextFileAnalyzer {
         public long getCharCount() { return charCount; }
         public Map<Character, Integer> getCharFrequency() { return charFrequency; }
         public long getFileSize() { return fileSize; }
+        public SpaceSavingSummary getWordSummary() { return wordSummary; }
+        public HyperLogLog getDistinctWords() { return distinctWords; }
+        public HyperLogLog getDistinctLines() { return distinctLines; }
+
+        /**
+         * @return до n самых частых слов по убыванию оценки; пусто, если сводка не велась
+         */
+        public List<SpaceSavingSummary.Entry> getTopWords(int n) {
+            return wordSummary == null ? List.of() : wordSummary.top(n);
+        }
+
+        /**
+         * Объединяет результаты двух независимых текстов (например, двух файлов). Операция ассоциативна:
+         * счётчики, частоты и оценки HyperLogLog объединяются точно, charCount — сумма по текстам;
+         * у сводки частых слов от порядка слияния зависят только оценки в пределах её погрешности.
+         * Сводка или оценка остаётся в результате, только если она есть в обоих слагаемых.
+         */
+        public AnalysisResult merge(AnalysisResult other) {
+            Map<Character, Integer> frequency = new HashMap<>(charFrequency);
+            other.charFrequency.forEach((c, count) -> frequency.merge(c, count, AnalysisResult::saturatedAdd));
+
+            return new AnalysisResult(lineCount + other.lineCount, wordCount + other.wordCount,
+                    charCount + other.charCount, frequency, fileSize + other.fileSize,
+                    wordSummary == null || other.wordSummary == null ? null : wordSummary.merge(other.wordSummary),
+                    distinctWords == null || other.distinctWords == null ? null : distinctWords.merge(other.distinctWords),
+                    distinctLines == null || other.distinctLines == null ? null : distinctLines.merge(other.distinctLines));
+        }
+
+        private static int saturatedAdd(int a, int b) {
+            return (int) Math.min((long) a + b, Integer.MAX_VALUE);
+        }
+
+        void write(DataOutput out) throws IOException {
+            out.writeLong(lineCount);
+            out.writeLong(wordCount);
+            out.writeLong(charCount);
+            out.writeLong(fileSize);
+            out.writeInt(charFrequency.size());
+            for (Map.Entry<Character, Integer> entry : charFrequency.entrySet()) {
+                out.writeChar(entry.getKey());
+                out.writeInt(entry.getValue());
+            }
+
+            out.writeBoolean(wordSummary != null);
+            if (wordSummary != null) {
+                wordSummary.write(out);
+            }
+            out.writeBoolean(distinctWords != null);
+            if (distinctWords != null) {
+                distinctWords.write(out);
+                distinctLines.write(out);
+            }
+        }
+
+        static AnalysisResult read(DataInput in) throws IOException {
+            long lineCount = in.readLong();
+            long wordCount = in.readLong();
+            long charCount = in.readLong();
+            long fileSize = in.readLong();
+            int distinctChars = in.readInt();
+            if (distinctChars < 0 || distinctChars > Character.MAX_VALUE + 1) {
+                throw new IOException("Неверное число различных символов: " + distinctChars);
+            }
+            Map<Character, Integer> charFrequency = new HashMap<>();
+            for (int i = 0; i < distinctChars; i++) {
+                charFrequency.put(in.readChar(), in.readInt());
+            }
+
+            SpaceSavingSummary wordSummary = in.readBoolean() ? SpaceSavingSummary.read(in) : null;
+            HyperLogLog distinctWords = null;
+            HyperLogLog distinctLines = null;
+            if (in.readBoolean()) {
+                distinctWords = HyperLogLog.read(in);
+                distinctLines = HyperLogLog.read(in);
+            }
+            return new AnalysisResult(lineCount, wordCount, charCount, charFrequency, fileSize,
+                    wordSummary, distinctWords, distinctLines);
+        }
 
         @Override
         public String toString() {
@@ -38,40 +200,172 @@ public class TextFileAnalyzer {
         }
     }
 
-    public AnalysisResult analyzeFile(String filePath) throws IOException {
-        long lineCount = 0;
-        long wordCount = 0;
-        long charCount = 0;
-        Map<Character, Integer> charFrequency = new HashMap<>();
+    /**
+     * Статистика по строкам, прочитанным как String. Символы перевода строки между строками
+     * учитываются при сборке результата.
+     */
+    private static class LineStatistics {
+        private long lineCount;
+        private long wordCount;
+        private long lineChars;
+        private final Map<Character, Integer> charFrequency = new HashMap<>();
 
-        Path path = Paths.get(filePath);
-        long fileSize = Files.size(path);
+        void addLine(String line) {
+            lineCount++;
+            lineChars += line.length();
 
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(new FileInputStream(filePath), StandardCharsets.UTF_8))) {
+            if (!line.trim().isEmpty()) {
+                String[] words = line.trim().split("\\s+");
+                wordCount += words.length;
+            }
 
+            for (char c : line.toCharArray()) {
+                charFrequency.put(c, charFrequency.getOrDefault(c, 0) + 1);
+            }
+        }
+
+        void addLines(BufferedReader reader) throws IOException {
             String line;
             while ((line = reader.readLine()) != null) {
-                lineCount++;
-                charCount += line.length();
+                addLine(line);
+            }
+        }
 
-                if (!line.trim().isEmpty()) {
-                    String[] words = line.trim().split("\\s+");
-                    wordCount += words.length;
-                }
+        /**
+         * Символов — сумма длин строк плюс по одному переводу строки между соседними строками
+         */
+        AnalysisResult toResult(long fileSize) {
+            long charCount = lineCount > 0 ? lineChars + lineCount - 1 : 0;
+            return new AnalysisResult(lineCount, wordCount, charCount, charFrequency, fileSize);
+        }
+    }
 
-                for (char c : line.toCharArray()) {
-                    charFrequency.put(c, charFrequency.getOrDefault(c, 0) + 1);
-                }
+    /**
+     * Анализирует файл, декодируя UTF-8 прямо из direct-буфера движком {@link TextAnalysisEngine}:
+     * память не выделяется ни на строку, ни на символ, результат — как при чтении через readLine()
+     */
+    public AnalysisResult analyzeFile(String filePath) throws IOException {
+        Path path = Paths.get(filePath);
+        long fileSize = Files.size(path);
 
-                charCount++;
+        TextAnalysisEngine engine = newEngine();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            analyzeRange(channel, 0, Long.MAX_VALUE, engine, bufferPool);
+        }
+
+        return engine.toResult(fileSize);
+    }
+
+    /**
+     * Подаёт в движок байты [start, end) канала (или до конца файла) позиционными чтениями
+     * и завершает его. Общий канал не сдвигается, поэтому его могут одновременно читать несколько задач.
+     */
+    static void analyzeRange(FileChannel channel, long start, long end, TextAnalysisEngine engine,
+                             DirectBufferPool bufferPool) throws IOException {
+        feedRange(channel, start, end, engine, bufferPool);
+        engine.finish();
+    }
+
+    /**
+     * Подаёт в движок байты [start, end) канала, не завершая его: данные могут продолжиться
+     */
+    static void feedRange(FileChannel channel, long start, long end, TextAnalysisEngine engine,
+                          DirectBufferPool bufferPool) throws IOException {
+        ByteBuffer buffer = bufferPool.acquire(READ_BUFFER_SIZE);
+        try {
+            long position = start;
+            while (position < end) {
+                buffer.clear();
+                if (end - position < buffer.capacity()) {
+                    buffer.limit((int) (end - position));
+                }
+                int bytesRead = channel.read(buffer, position);
+                if (bytesRead < 0) {
+                    break;
+                }
+                position += bytesRead;
+                engine.update(buffer.flip());
             }
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
 
-            if (charCount > 0) charCount--;
+    /**
+     * Параллельный анализ: файл делится на куски по границам строк (сразу после '\n'),
+     * куски анализируются в fork/join-пуле и их статистики складываются.
+     * Так как ни строка, ни символ UTF-8 не пересекает границу куска, результат совпадает с {@link #analyzeFile}.
+     * @param parallelism количество потоков анализа
+     */
+    public AnalysisResult analyzeFileParallel(String filePath, int parallelism) throws IOException {
+        return analyzeFileParallel(filePath, parallelism, DEFAULT_CHUNK_SIZE);
+    }
 
+    AnalysisResult analyzeFileParallel(String filePath, int parallelism, long chunkSize) throws IOException {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Количество потоков должно быть положительным: " + parallelism);
         }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Размер куска должен быть положительным: " + chunkSize);
+        }
+
+        Path path = Paths.get(filePath);
+        long fileSize = Files.size(path);
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long[] boundaries = FileProcessor.recordBoundaries(channel, chunkSize, LINE_FEED);
+            TextAnalysisEngine engine = boundaries.length < 2
+                    ? newEngine()
+                    : pool.invoke(new ChunkTask(channel, boundaries, 0, boundaries.length - 1, this::newEngine, bufferPool));
+            return engine.toResult(fileSize);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Анализирует куски [from, to): один кусок читается сам, диапазон делится пополам
+     */
+    private static class ChunkTask extends RecursiveTask<TextAnalysisEngine> {
+        private final FileChannel channel;
+        private final long[] boundaries;
+        private final int from;
+        private final int to;
+        private final Supplier<TextAnalysisEngine> engineFactory;
+        private final DirectBufferPool bufferPool;
+
+        ChunkTask(FileChannel channel, long[] boundaries, int from, int to, Supplier<TextAnalysisEngine> engineFactory,
+                  DirectBufferPool bufferPool) {
+            this.channel = channel;
+            this.boundaries = boundaries;
+            this.from = from;
+            this.to = to;
+            this.engineFactory = engineFactory;
+            this.bufferPool = bufferPool;
+        }
+
+        @Override
+        protected TextAnalysisEngine compute() {
+            if (to - from == 1) {
+                TextAnalysisEngine engine = engineFactory.get();
+                try {
+                    analyzeRange(channel, boundaries[from], boundaries[to], engine, bufferPool);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return engine;
+            }
 
-        return new AnalysisResult(lineCount, wordCount, charCount, charFrequency, fileSize);
+            int middle = (from + to) >>> 1;
+            ChunkTask right = new ChunkTask(channel, boundaries, middle, to, engineFactory, bufferPool);
+            right.fork();
+            TextAnalysisEngine left = new ChunkTask(channel, boundaries, from, middle, engineFactory, bufferPool).compute();
+            left.merge(right.join());
+            return left;
+        }
     }
 
     public void saveAnalysisResult(AnalysisResult result, String outputPath) throws IOException {
@@ -101,9 +395,51 @@ public class TextFileAnalyzer {
                             throw new UncheckedIOException(e);
                         }
                     });
+
+            if (result.getDistinctWords() != null) {
+                writer.write("\n=== РАЗЛИЧНЫЕ ЭЛЕМЕНТЫ (HyperLogLog) ===\n");
+                writer.write(String.format("Различных слов: ~%,d (±%.1f%%)\n",
+                        result.getDistinctWords().estimate(), result.getDistinctWords().getStandardError() * 100));
+                writer.write(String.format("Различных строк: ~%,d (±%.1f%%)\n",
+                        result.getDistinctLines().estimate(), result.getDistinctLines().getStandardError() * 100));
+            }
+
+            if (result.getWordSummary() != null) {
+                writer.write("\n=== ЧАСТЫЕ СЛОВА ===\n");
+                writer.write("====================\n");
+                for (SpaceSavingSummary.Entry entry : result.getTopWords(TOP_WORDS_IN_REPORT)) {
+                    writer.write(String.format("%-30s : %d (±%d)\n", entry.getWord(), entry.getCount(), entry.getError()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Сохраняет оценки различных слов и строк в двоичном виде, чтобы потом объединять их с оценками
+     * других файлов: файл читается двумя вызовами {@link HyperLogLog#read(DataInput)} — слова, затем строки
+     */
+    public void saveDistinctSketches(AnalysisResult result, String outputPath) throws IOException {
+        if (result.getDistinctWords() == null) {
+            throw new IllegalArgumentException("В результате нет оценок различных слов и строк");
+        }
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(Paths.get(outputPath))))) {
+            result.getDistinctWords().write(out);
+            result.getDistinctLines().write(out);
         }
     }
 
+    /**
+     * Результат пустого текста с теми же сводками и оценками, что у анализа файла: нейтральный элемент merge
+     */
+    AnalysisResult emptyResult() {
+        return newEngine().toResult(0);
+    }
+
+    private TextAnalysisEngine newEngine() {
+        return new TextAnalysisEngine(topWordCapacity, distinctPrecision);
+    }
+
     private String getCharDisplay(char c) {
         switch (c) {
             case ' ': return "[ПРОБЕЛ]";
@@ -117,32 +453,12 @@ public class TextFileAnalyzer {
     public AnalysisResult analyzeFileWithNIO2(String filePath) throws IOException {
         Path path = Paths.get(filePath);
         long fileSize = Files.size(path);
-        long lineCount = 0;
-        long wordCount = 0;
-        long charCount = 0;
-        Map<Character, Integer> charFrequency = new HashMap<>();
+        LineStatistics statistics = new LineStatistics();
 
         try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                lineCount++;
-                charCount += line.length();
-
-                if (!line.trim().isEmpty()) {
-                    String[] words = line.trim().split("\\s+");
-                    wordCount += words.length;
-                }
-
-                for (char c : line.toCharArray()) {
-                    charFrequency.put(c, charFrequency.getOrDefault(c, 0) + 1);
-                }
-
-                charCount++;
-            }
-
-            if (charCount > 0) charCount--;
+            statistics.addLines(reader);
         }
 
-        return new AnalysisResult(lineCount, wordCount, charCount, charFrequency, fileSize);
+        return statistics.toResult(fileSize);
     }
 }
\ No newline at end of file
@@ -4,11 +4,16 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.DataInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 
 class TextFileAnalyzerTest {
 
@@ -32,6 +37,22 @@ class TextFileAnalyzerTest {
         assertTrue(result.getCharFrequency().containsKey('l'));
     }
 
+    @Test
+    void testInjectedBufferPool() throws IOException {
+        DirectBufferPool pool = new DirectBufferPool(TextFileAnalyzer.READ_BUFFER_SIZE, 1 << 20);
+        TextFileAnalyzer analyzer = new TextFileAnalyzer(pool);
+
+        Path testFile = Files.createTempFile(tempDir, "pool", ".txt");
+        Files.write(testFile, List.of("first line", "second line"));
+
+        analyzer.analyzeFile(testFile.toString());
+        analyzer.analyzeFile(testFile.toString());
+
+        assertEquals(1, pool.getMisses());
+        assertEquals(1, pool.getHits());
+        assertEquals(TextFileAnalyzer.READ_BUFFER_SIZE, pool.getPooledBytes());
+    }
+
     @Test
     void testAnalyzeFileWithNIO2() throws IOException {
         TextFileAnalyzer analyzer = new TextFileAnalyzer();
@@ -67,4 +88,105 @@ class TextFileAnalyzerTest {
         assertTrue(content.contains("Количество слов: 5"));
         assertTrue(content.contains("[ПРОБЕЛ]"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testAnalyzeFileParallelMatchesSequential() throws IOException {
+        TextFileAnalyzer analyzer = new TextFileAnalyzer();
+
+        String[] fragments = {"word", " ", "  ", "\t", "\n", "\r\n", "\r", "Привет", "😀", "\u0001", "a\u0001b", "", "x"};
+        StringBuilder text = new StringBuilder();
+        Random random = new Random(7);
+        for (int i = 0; i < 20_000; i++) {
+            text.append(fragments[random.nextInt(fragments.length)]);
+        }
+
+        Path testFile = tempDir.resolve("parallel.txt");
+        Files.writeString(testFile, text, StandardCharsets.UTF_8);
+
+        TextFileAnalyzer.AnalysisResult expected = analyzer.analyzeFile(testFile.toString());
+        for (long chunkSize : new long[] {1, 100, 4096, TextFileAnalyzer.DEFAULT_CHUNK_SIZE}) {
+            TextFileAnalyzer.AnalysisResult actual = analyzer.analyzeFileParallel(testFile.toString(), 4, chunkSize);
+
+            assertEquals(expected.getLineCount(), actual.getLineCount());
+            assertEquals(expected.getWordCount(), actual.getWordCount());
+            assertEquals(expected.getCharCount(), actual.getCharCount());
+            assertEquals(expected.getFileSize(), actual.getFileSize());
+            assertEquals(expected.getCharFrequency(), actual.getCharFrequency());
+        }
+
+        Path emptyFile = Files.createFile(tempDir.resolve("empty.txt"));
+        assertEquals(0, analyzer.analyzeFileParallel(emptyFile.toString(), 2).getLineCount());
+    }
+
+    @Test
+    void testTopWordsMatchExactCountsWhenCapacityIsEnough() throws IOException {
+        TextFileAnalyzer analyzer = new TextFileAnalyzer(10_000);
+
+        String[] fragments = {"alpha", "beta", "гамма", "😀", " ", "\t", "\n", "\r\n", "\u0001", "a\u0001b"};
+        StringBuilder text = new StringBuilder();
+        Random random = new Random(13);
+        for (int i = 0; i < 5_000; i++) {
+            text.append(fragments[random.nextInt(fragments.length)]);
+        }
+        Path testFile = tempDir.resolve("words.txt");
+        Files.writeString(testFile, text, StandardCharsets.UTF_8);
+
+        Map<String, Long> expected = new HashMap<>();
+        for (String line : Files.readAllLines(testFile, StandardCharsets.UTF_8)) {
+            for (String word : line.trim().split("\\s+")) {
+                if (!word.trim().isEmpty()) {
+                    expected.merge(word.trim(), 1L, Long::sum);
+                }
+            }
+        }
+
+        for (TextFileAnalyzer.AnalysisResult result : List.of(analyzer.analyzeFile(testFile.toString()),
+                analyzer.analyzeFileParallel(testFile.toString(), 4, 500))) {
+            Map<String, Long> actual = new HashMap<>();
+            for (SpaceSavingSummary.Entry entry : result.getTopWords(10_000)) {
+                assertEquals(0, entry.getError());
+                actual.put(entry.getWord(), entry.getCount());
+            }
+            assertEquals(expected, actual);
+        }
+
+        Path reportSource = tempDir.resolve("report_source.txt");
+        Files.writeString(reportSource, "alpha beta alpha\nгамма alpha\n", StandardCharsets.UTF_8);
+        Path output = tempDir.resolve("words_report.txt");
+        analyzer.saveAnalysisResult(analyzer.analyzeFile(reportSource.toString()), output.toString());
+        assertTrue(Files.readString(output).contains("ЧАСТЫЕ СЛОВА"));
+        assertTrue(Files.readString(output).contains("alpha"));
+        assertTrue(new TextFileAnalyzer().analyzeFile(testFile.toString()).getTopWords(10).isEmpty());
+    }
+
+    @Test
+    void testDistinctWordAndLineEstimates() throws IOException {
+        TextFileAnalyzer analyzer = new TextFileAnalyzer(0, 12);
+
+        StringBuilder text = new StringBuilder();
+        Random random = new Random(17);
+        for (int i = 0; i < 20_000; i++) {
+            // 300 различных строк из слов word0..word499, слова внутри строки разделены по-разному
+            int line = random.nextInt(300);
+            text.append("word").append(line).append(i % 2 == 0 ? " " : "\t ")
+                    .append("word").append(line + 200).append(i % 3 == 0 ? "\r\n" : "\n");
+        }
+        Path testFile = tempDir.resolve("distinct.txt");
+        Files.writeString(testFile, text, StandardCharsets.UTF_8);
+
+        long expectedLines = Files.readAllLines(testFile).stream().distinct().count();
+        for (TextFileAnalyzer.AnalysisResult result : List.of(analyzer.analyzeFile(testFile.toString()),
+                analyzer.analyzeFileParallel(testFile.toString(), 4, 4096))) {
+            assertEquals(500, result.getDistinctWords().estimate(), 500 * 0.05);
+            assertEquals(expectedLines, result.getDistinctLines().estimate(), expectedLines * 0.05);
+        }
+
+        Path sketches = tempDir.resolve("distinct.hll");
+        analyzer.saveDistinctSketches(analyzer.analyzeFile(testFile.toString()), sketches.toString());
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(sketches))) {
+            assertEquals(500, HyperLogLog.read(in).estimate(), 500 * 0.05);
+            assertEquals(expectedLines, HyperLogLog.read(in).estimate(), expectedLines * 0.05);
+        }
+        assertNull(new TextFileAnalyzer().analyzeFile(testFile.toString()).getDistinctWords());
+    }
+}
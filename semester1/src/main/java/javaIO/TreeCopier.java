@@ -0,0 +1,154 @@
+package javaIO;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Параллельное копирование дерева директорий в fork/join-пуле.
+ * Каждая директория — отдельная задача: она разом создаёт все свои поддиректории, порождает задачи
+ * для них и делит свои файлы на пачки, которые свободные потоки забирают себе (work stealing).
+ */
+final class TreeCopier {
+
+    static final int SMALL_FILE_SIZE = 64 * 1024;
+
+    private static final int FILES_PER_TASK = 16;
+
+    private final OperationRecorder recorder;
+    private final AtomicInteger fileNumber = new AtomicInteger();
+    private final LongAdder files = new LongAdder();
+    private final LongAdder directories = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+
+    /**
+     * @param recorder замеры операции: каждый скопированный файл учитывается как часть
+     */
+    TreeCopier(OperationRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    TreeCopyStats copy(Path sourceDir, Path destDir, int parallelism) throws IOException {
+        if (!Files.isDirectory(sourceDir)) {
+            throw new IOException("Исходная директория не найдена: " + sourceDir);
+        }
+
+        long start = System.nanoTime();
+        Files.createDirectories(destDir);
+        directories.increment();
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new DirectoryTask(sourceDir, destDir));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdownNow();
+        }
+
+        return new TreeCopyStats(files.sum(), directories.sum(), bytes.sum(), System.nanoTime() - start);
+    }
+
+    /**
+     * Мелкий файл копируется одним чтением и одной записью, крупный — через transferTo
+     * тем же циклом, что и {@link FileProcessor#efficientCopy}: укороченный во время копирования
+     * источник даёт EOFException, а не неполную копию
+     */
+    private void copyFile(Path source, Path target) throws IOException {
+        OperationRecorder.Part part = recorder.startPart(fileNumber.incrementAndGet());
+        long size = Files.size(source);
+        long copied;
+
+        if (size <= SMALL_FILE_SIZE) {
+            byte[] data = Files.readAllBytes(source);
+            Files.write(target, data);
+            copied = data.length;
+        } else {
+            try (FileChannel sourceChannel = FileChannel.open(source, StandardOpenOption.READ);
+                 FileChannel targetChannel = FileChannel.open(target, StandardOpenOption.CREATE,
+                         StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+                copied = FileProcessor.transferFully(sourceChannel, 0, size, targetChannel, target);
+            }
+        }
+        bytes.add(copied);
+        files.increment();
+        part.end(copied);
+    }
+
+    private final class DirectoryTask extends RecursiveAction {
+        private final Path source;
+        private final Path target;
+
+        DirectoryTask(Path source, Path target) {
+            this.source = source;
+            this.target = target;
+        }
+
+        @Override
+        protected void compute() {
+            List<Path> subdirectories = new ArrayList<>();
+            List<Path> regularFiles = new ArrayList<>();
+
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(source)) {
+                for (Path entry : entries) {
+                    if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+                        subdirectories.add(entry);
+                    } else if (Files.isRegularFile(entry)) {
+                        regularFiles.add(entry);
+                    }
+                }
+
+                for (Path subdirectory : subdirectories) {
+                    Files.createDirectories(target.resolve(subdirectory.getFileName().toString()));
+                    directories.increment();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            List<ForkJoinTask<?>> tasks = new ArrayList<>();
+            for (Path subdirectory : subdirectories) {
+                tasks.add(new DirectoryTask(subdirectory, target.resolve(subdirectory.getFileName().toString())));
+            }
+            for (int from = 0; from < regularFiles.size(); from += FILES_PER_TASK) {
+                int to = Math.min(from + FILES_PER_TASK, regularFiles.size());
+                tasks.add(new FileBatchTask(regularFiles.subList(from, to), target));
+            }
+            invokeAll(tasks);
+        }
+    }
+
+    private final class FileBatchTask extends RecursiveAction {
+        private final List<Path> sources;
+        private final Path targetDirectory;
+
+        FileBatchTask(List<Path> sources, Path targetDirectory) {
+            this.sources = sources;
+            this.targetDirectory = targetDirectory;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                for (Path source : sources) {
+                    copyFile(source, targetDirectory.resolve(source.getFileName().toString()));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
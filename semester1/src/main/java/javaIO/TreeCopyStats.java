@@ -0,0 +1,37 @@
+package javaIO;
+
+/**
+ * Итоги копирования дерева директорий: сколько скопировано и с какой скоростью
+ */
+public class TreeCopyStats {
+    private final long fileCount;
+    private final long directoryCount;
+    private final long byteCount;
+    private final long elapsedNanos;
+
+    public TreeCopyStats(long fileCount, long directoryCount, long byteCount, long elapsedNanos) {
+        this.fileCount = fileCount;
+        this.directoryCount = directoryCount;
+        this.byteCount = byteCount;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getFileCount() { return fileCount; }
+    public long getDirectoryCount() { return directoryCount; }
+    public long getByteCount() { return byteCount; }
+    public long getElapsedNanos() { return elapsedNanos; }
+
+    public double getFilesPerSecond() {
+        return elapsedNanos == 0 ? 0 : fileCount * 1e9 / elapsedNanos;
+    }
+
+    public double getBytesPerSecond() {
+        return elapsedNanos == 0 ? 0 : byteCount * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TreeCopyStats{files=%d, dirs=%d, bytes=%d, %.0f files/s, %.1f MB/s}",
+                fileCount, directoryCount, byteCount, getFilesPerSecond(), getBytesPerSecond() / (1 << 20));
+    }
+}